@@ -0,0 +1,86 @@
+package com.sparrowwallet.toucan;
+
+import com.sparrowwallet.toucan.impl.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.sparrowwallet.toucan.impl.Gradients.selectGradient;
+import static com.sparrowwallet.toucan.impl.Patterns.selectPattern;
+
+/**
+ * Benchmarks each stage of creating a LifeHash, up to the unscaled color grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LifeHashBenchmark {
+    @Param({"VERSION1", "VERSION2", "DETAILED", "FIDUCIAL", "GRAYSCALE_FIDUCIAL"})
+    public LifeHashVersion version;
+
+    private byte[] digest;
+    private byte[] seed;
+    private Size size;
+    private int maxGenerations;
+    private LifeHashGenerator generator;
+    private LifeSimulation simulation;
+    private FracGrid fracGrid;
+    private ColorGrid colorGrid;
+
+    @Setup
+    public void setup() {
+        digest = Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8));
+        generator = new LifeHashGenerator();
+        seed = generator.makeSeed(digest, version).clone();
+        size = LifeHashGenerator.getSize(version);
+        maxGenerations = LifeHashGenerator.getMaxGenerations(version);
+
+        simulation = new LifeSimulation();
+        simulation.run(seed, size, maxGenerations);
+        fracGrid = new FracGrid(size);
+        fracGrid();
+
+        BitEnumerator entropy = LifeHashGenerator.getEntropy(digest, version);
+        ColorFunc gradient = selectGradient(entropy, version);
+        Pattern pattern = selectPattern(entropy, version);
+        colorGrid = new ColorGrid(ColorGrid.targetSize(size, pattern));
+    }
+
+    @Benchmark
+    public byte[] seed() {
+        return generator.makeSeed(digest, version);
+    }
+
+    @Benchmark
+    public int simulation() {
+        simulation.run(seed, size, maxGenerations);
+        return simulation.getGenerations();
+    }
+
+    @Benchmark
+    public FracGrid fracGrid() {
+        fracGrid.setGenerations(simulation.getLastAliveGenerations(), simulation.getGenerations());
+        if(version != LifeHashVersion.VERSION1) {
+            fracGrid.normalize();
+        }
+        return fracGrid;
+    }
+
+    @Benchmark
+    public ColorGrid colorGrid() {
+        BitEnumerator entropy = LifeHashGenerator.getEntropy(digest, version);
+        ColorFunc gradient = selectGradient(entropy, version);
+        Pattern pattern = selectPattern(entropy, version);
+        colorGrid.draw(fracGrid, gradient, pattern);
+        return colorGrid;
+    }
+
+    @Benchmark
+    public LifeHash.Image makeFromDigest() {
+        return generator.makeFromDigest(digest, version, 1, false);
+    }
+}
@@ -0,0 +1,101 @@
+package com.sparrowwallet.toucan;
+
+import com.sparrowwallet.toucan.impl.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.sparrowwallet.toucan.impl.Gradients.selectGradient;
+import static com.sparrowwallet.toucan.impl.Patterns.selectPattern;
+
+/**
+ * Benchmarks scaling and resampling the color grid of a LifeHash into an image, and converting that image for AWT.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LifeHashImageBenchmark {
+    @Param({"VERSION1", "VERSION2", "DETAILED", "FIDUCIAL", "GRAYSCALE_FIDUCIAL"})
+    public LifeHashVersion version;
+
+    @Param({"1", "4", "16"})
+    public int moduleSize;
+
+    private Size colorGridSize;
+    private int[] colors;
+    private LifeHash.Image baseImage;
+    private LifeHash.Image image;
+    private Resampler boxResampler;
+    private Resampler bilinearResampler;
+    private byte[] resampled;
+    private int resampledStride;
+
+    @Setup
+    public void setup() {
+        byte[] digest = Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8));
+        LifeHashGenerator generator = new LifeHashGenerator();
+        Size size = LifeHashGenerator.getSize(version);
+
+        LifeSimulation simulation = new LifeSimulation();
+        simulation.run(generator.makeSeed(digest, version), size, LifeHashGenerator.getMaxGenerations(version));
+        FracGrid fracGrid = new FracGrid(size);
+        fracGrid.setGenerations(simulation.getLastAliveGenerations(), simulation.getGenerations());
+        if(version != LifeHashVersion.VERSION1) {
+            fracGrid.normalize();
+        }
+
+        BitEnumerator entropy = LifeHashGenerator.getEntropy(digest, version);
+        ColorFunc gradient = selectGradient(entropy, version);
+        Pattern pattern = selectPattern(entropy, version);
+        ColorGrid colorGrid = new ColorGrid(fracGrid, gradient, pattern);
+
+        colorGridSize = colorGrid.getSize();
+        colors = colorGrid.getColors();
+        baseImage = generator.makeFromDigest(digest, version, 1, false);
+        image = generator.makeFromDigest(digest, version, moduleSize, false);
+
+        // Resample to a size that is not a whole multiple of the color grid
+        int resampledSize = colorGridSize.width() * moduleSize * 3 / 2;
+        boxResampler = new Resampler(colorGridSize.width(), colorGridSize.height(), resampledSize, resampledSize, ResampleFilter.BOX);
+        bilinearResampler = new Resampler(colorGridSize.width(), colorGridSize.height(), resampledSize, resampledSize, ResampleFilter.BILINEAR);
+        resampledStride = resampledSize * 3;
+        resampled = new byte[resampledStride * resampledSize];
+    }
+
+    @Benchmark
+    public LifeHash.Image makeImage() {
+        return LifeHash.makeImage(colorGridSize.width(), colorGridSize.height(), colors, moduleSize, false);
+    }
+
+    @Benchmark
+    public LifeHash.Image makeImageWithAlpha() {
+        return LifeHash.makeImage(colorGridSize.width(), colorGridSize.height(), colors, moduleSize, true);
+    }
+
+    @Benchmark
+    public BufferedImage getBufferedImage() {
+        return AwtImages.getBufferedImage(image);
+    }
+
+    @Benchmark
+    public BufferedImage getBufferedImageFromColorGrid() {
+        return AwtImages.getBufferedImage(baseImage, moduleSize, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Benchmark
+    public byte[] resampleBox() {
+        boxResampler.resample(colors, PixelFormat.RGB, resampled, 0, resampledStride);
+        return resampled;
+    }
+
+    @Benchmark
+    public byte[] resampleBilinear() {
+        bilinearResampler.resample(colors, PixelFormat.RGB, resampled, 0, resampledStride);
+        return resampled;
+    }
+}
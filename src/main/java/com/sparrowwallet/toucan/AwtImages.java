@@ -0,0 +1,158 @@
+package com.sparrowwallet.toucan;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Converts LifeHash images to java.awt.image.BufferedImage. This is the only class using AWT, so that the rest of the
+ * library can be used and inspected when the java.desktop module is not present.
+ */
+public final class AwtImages {
+    private AwtImages() {
+    }
+
+    /**
+     * Creates a java.awt.image.BufferedImage from the LifeHash image
+     *
+     * @param image the LifeHash.Image to use
+     * @return a renderable image
+     */
+    public static BufferedImage getBufferedImage(LifeHash.Image image) {
+        return getBufferedImage(image, 1, image.hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Creates a java.awt.image.BufferedImage from the LifeHash image, scaling each pixel up to a square module.
+     * Pixels are written directly into the raster of the new image, so a LifeHash created with a module size of 1
+     * can be converted into a large image without creating a scaled LifeHash.Image first.
+     *
+     * @param image the LifeHash.Image to use
+     * @param moduleSize the width and height in the returned image of each pixel in the LifeHash image
+     * @param imageType one of BufferedImage.TYPE_INT_RGB, TYPE_INT_ARGB, TYPE_3BYTE_BGR or TYPE_4BYTE_ABGR
+     * @return a renderable image
+     */
+    public static BufferedImage getBufferedImage(LifeHash.Image image, int moduleSize, int imageType) {
+        if (moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+
+        LifeHashListener listener = LifeHash.getListener();
+        long start = listener == null ? 0L : System.nanoTime();
+
+        BufferedImage bufferedImage;
+        switch(imageType) {
+            case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB -> {
+                bufferedImage = new BufferedImage(image.width() * moduleSize, image.height() * moduleSize, imageType);
+                int[] pixels = ((DataBufferInt)bufferedImage.getRaster().getDataBuffer()).getData();
+                writeIntPixels(image, moduleSize, pixels, imageType == BufferedImage.TYPE_INT_ARGB);
+            }
+            case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR -> {
+                bufferedImage = new BufferedImage(image.width() * moduleSize, image.height() * moduleSize, imageType);
+                byte[] pixels = ((DataBufferByte)bufferedImage.getRaster().getDataBuffer()).getData();
+                writeBytePixels(image, moduleSize, pixels, imageType == BufferedImage.TYPE_4BYTE_ABGR);
+            }
+            default -> throw new IllegalArgumentException("Unsupported image type.");
+        }
+
+        if (listener != null) {
+            listener.onBufferedImage(bufferedImage.getWidth(), bufferedImage.getHeight(), imageType, System.nanoTime() - start);
+        }
+
+        return bufferedImage;
+    }
+
+    /**
+     * Creates a java.awt.image.BufferedImage from the LifeHash model, scaling each module up to moduleSize pixels square
+     *
+     * @param model the LifeHashModel to use
+     * @param moduleSize the width and height in the returned image of each module
+     * @param imageType one of BufferedImage.TYPE_INT_RGB, TYPE_INT_ARGB, TYPE_3BYTE_BGR or TYPE_4BYTE_ABGR
+     * @return a renderable image
+     */
+    public static BufferedImage getBufferedImage(LifeHashModel model, int moduleSize, int imageType) {
+        if(imageType != BufferedImage.TYPE_INT_RGB && imageType != BufferedImage.TYPE_INT_ARGB) {
+            // The byte layouts have no matching PixelFormat, so are converted from an unscaled image
+            return getBufferedImage(model.toImage(1, imageType == BufferedImage.TYPE_4BYTE_ABGR), moduleSize, imageType);
+        }
+
+        if(moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+
+        LifeHashListener listener = LifeHash.getListener();
+        long start = listener == null ? 0L : System.nanoTime();
+
+        int width = model.width() * moduleSize;
+        BufferedImage bufferedImage = new BufferedImage(width, model.height() * moduleSize, imageType);
+        int[] pixels = ((DataBufferInt)bufferedImage.getRaster().getDataBuffer()).getData();
+        model.render(moduleSize, PixelFormat.ARGB, pixels, 0, width);
+
+        if(listener != null) {
+            listener.onBufferedImage(bufferedImage.getWidth(), bufferedImage.getHeight(), imageType, System.nanoTime() - start);
+        }
+
+        return bufferedImage;
+    }
+
+    private static void writeIntPixels(LifeHash.Image image, int moduleSize, int[] pixels, boolean targetAlpha) {
+        byte[] data = image.getData();
+        int components = image.getComponents();
+        int scaledWidth = image.width() * moduleSize;
+        int sourceOffset = 0;
+
+        for (int sourceY = 0; sourceY < image.height(); sourceY++) {
+            int rowOffset = sourceY * moduleSize * scaledWidth;
+            int targetOffset = rowOffset;
+            for (int sourceX = 0; sourceX < image.width(); sourceX++) {
+                int r = data[sourceOffset] & 0xFF;
+                int g = data[sourceOffset + 1] & 0xFF;
+                int b = data[sourceOffset + 2] & 0xFF;
+                int color = (r << 16) | (g << 8) | b;
+                if (targetAlpha) {
+                    color |= (image.hasAlpha() ? data[sourceOffset + 3] & 0xFF : 0xFF) << 24;
+                }
+                Arrays.fill(pixels, targetOffset, targetOffset + moduleSize, color);
+                sourceOffset += components;
+                targetOffset += moduleSize;
+            }
+
+            for (int i = 1; i < moduleSize; i++) {
+                System.arraycopy(pixels, rowOffset, pixels, rowOffset + i * scaledWidth, scaledWidth);
+            }
+        }
+    }
+
+    private static void writeBytePixels(LifeHash.Image image, int moduleSize, byte[] pixels, boolean targetAlpha) {
+        byte[] data = image.getData();
+        int components = image.getComponents();
+        int targetComponents = targetAlpha ? 4 : 3;
+        int scaledRowLength = image.width() * moduleSize * targetComponents;
+        int sourceOffset = 0;
+
+        for (int sourceY = 0; sourceY < image.height(); sourceY++) {
+            int rowOffset = sourceY * moduleSize * scaledRowLength;
+            int targetOffset = rowOffset;
+            for (int sourceX = 0; sourceX < image.width(); sourceX++) {
+                byte r = data[sourceOffset];
+                byte g = data[sourceOffset + 1];
+                byte b = data[sourceOffset + 2];
+                byte a = image.hasAlpha() ? data[sourceOffset + 3] : (byte)255;
+                for (int i = 0; i < moduleSize; i++) {
+                    if (targetAlpha) {
+                        pixels[targetOffset++] = a;
+                    }
+                    pixels[targetOffset++] = b;
+                    pixels[targetOffset++] = g;
+                    pixels[targetOffset++] = r;
+                }
+                sourceOffset += components;
+            }
+
+            for (int i = 1; i < moduleSize; i++) {
+                System.arraycopy(pixels, rowOffset, pixels, rowOffset + i * scaledRowLength, scaledRowLength);
+            }
+        }
+    }
+}
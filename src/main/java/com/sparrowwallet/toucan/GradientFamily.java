@@ -0,0 +1,9 @@
+package com.sparrowwallet.toucan;
+
+public enum GradientFamily {
+    GRAYSCALE, // Black to white. Used by GRAYSCALE_FIDUCIAL.
+    MONOCHROMATIC, // A single hue blended with a neutral color.
+    COMPLEMENTARY, // Two hues opposite each other.
+    TRIADIC, // Three hues evenly spaced.
+    ANALOGOUS // Four adjacent hues.
+}
@@ -1,20 +1,29 @@
 package com.sparrowwallet.toucan;
 
-import com.sparrowwallet.toucan.impl.*;
-
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
-
-import static com.sparrowwallet.toucan.impl.Gradients.selectGradient;
-import static com.sparrowwallet.toucan.impl.Pattern.selectPattern;
-import static com.sparrowwallet.toucan.impl.Utils.clamped;
-import static com.sparrowwallet.toucan.impl.Utils.lerpFrom;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ObjIntConsumer;
 
 public class LifeHash {
+    private static final int BATCH_TASKS_PER_THREAD = 4;
+
+    private static volatile LifeHashListener listener;
+
     /**
      * Creates a LifeHash.Image object from the provided String
      *
@@ -38,8 +47,50 @@ public class LifeHash {
      * @return an object representing the LifeHash
      */
     public static Image makeFromData(byte[] data, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
-        byte[] digest = Sha256Hash.hash(data);
-        return makeFromDigest(digest, version, moduleSize, hasAlpha);
+        return LifeHashGenerator.get().makeFromData(data, version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the remaining bytes of the provided stream, which is read in chunks and not closed
+     *
+     * @param input the stream to read the input from
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     * @throws IOException if the stream could not be read
+     */
+    public static Image makeFromData(InputStream input, LifeHashVersion version, int moduleSize, boolean hasAlpha) throws IOException {
+        return LifeHashGenerator.get().makeFromData(input, version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the remaining bytes of the provided channel, which is read in chunks through a direct buffer and not closed
+     *
+     * @param input the channel to read the input from
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     * @throws IOException if the channel could not be read
+     */
+    public static Image makeFromData(ReadableByteChannel input, LifeHashVersion version, int moduleSize, boolean hasAlpha) throws IOException {
+        return LifeHashGenerator.get().makeFromData(input, version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the contents of the provided file. Large files are memory-mapped, so heap use
+     * does not depend on the size of the file.
+     *
+     * @param path the file to read the input from
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     * @throws IOException if the file could not be read
+     */
+    public static Image makeFromData(Path path, LifeHashVersion version, int moduleSize, boolean hasAlpha) throws IOException {
+        return LifeHashGenerator.get().makeFromData(path, version, moduleSize, hasAlpha);
     }
 
     /**
@@ -52,159 +103,352 @@ public class LifeHash {
      * @return an object representing the LifeHash
      */
     public static Image makeFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
-        if(digest.length != 32) {
-            throw new IllegalArgumentException("Digest must be 32 bytes.");
-        }
+        return LifeHashGenerator.get().makeFromDigest(digest, version, moduleSize, hasAlpha);
+    }
 
-        int length;
-        int maxGenerations;
+    /**
+     * Creates a ScaledImage from the provided bytes, which holds only the unscaled colors of the LifeHash
+     * and resolves scaled pixels on demand
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included in rows of RGB or RGBA pixel data
+     * @return a lazily scaled view of the LifeHash
+     */
+    public static ScaledImage makeScaledFromData(byte[] data, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        return LifeHashGenerator.get().makeScaledFromData(data, version, moduleSize, hasAlpha);
+    }
 
-        switch(version) {
-            case VERSION1, VERSION2 -> {
-                length = 16;
-                maxGenerations = 150;
-            }
-            case DETAILED, FIDUCIAL, GRAYSCALE_FIDUCIAL -> {
-                length = 32;
-                maxGenerations = 300;
-            }
-            default -> throw new IllegalArgumentException("Invalid version.");
-        }
-
-        Size size = new Size(length, length);
-
-        // These get reused from generation to generation by swapping them.
-        CellGrid currentCellGrid = new CellGrid(size);
-        CellGrid nextCellGrid = new CellGrid(size);
-        ChangeGrid currentChangeGrid = new ChangeGrid(size);
-        ChangeGrid nextChangeGrid = new ChangeGrid(size);
-
-        Set<Sha256Hash> historySet = new HashSet<>();
-        List<byte[]> history = new ArrayList<>();
-
-        switch(version) {
-            case VERSION1 -> nextCellGrid.setData(digest);
-            case VERSION2 ->
-                // Ensure that .version2 in no way resembles .version1
-                    nextCellGrid.setData(Sha256Hash.hash(digest));
-            case DETAILED, FIDUCIAL, GRAYSCALE_FIDUCIAL -> {
-                byte[] digest1 = digest;
-                // Ensure that grayscale fiducials in no way resemble the regular color fiducials
-                if(version == LifeHashVersion.GRAYSCALE_FIDUCIAL) {
-                    digest1 = Sha256Hash.hash(digest1);
-                }
-                byte[] digest2 = Sha256Hash.hash(digest1);
-                byte[] digest3 = Sha256Hash.hash(digest2);
-                byte[] digest4 = Sha256Hash.hash(digest3);
-                byte[] digestFinal = new byte[digest1.length*4];
-                System.arraycopy(digest1, 0, digestFinal, 0, digest1.length);
-                System.arraycopy(digest2, 0, digestFinal, digest1.length, digest2.length);
-                System.arraycopy(digest3, 0, digestFinal, digest1.length * 2, digest3.length);
-                System.arraycopy(digest4, 0, digestFinal, digest1.length * 3, digest4.length);
-                nextCellGrid.setData(digestFinal);
-            }
-        }
+    /**
+     * Creates a ScaledImage from the provided SHA256 hash, which holds only the unscaled colors of the LifeHash
+     * and resolves scaled pixels on demand
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included in rows of RGB or RGBA pixel data
+     * @return a lazily scaled view of the LifeHash
+     */
+    public static ScaledImage makeScaledFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        return LifeHashGenerator.get().makeScaledFromDigest(digest, version, moduleSize, hasAlpha);
+    }
 
-        nextChangeGrid.setAll(true);
+    /**
+     * Creates a LifeHashModel from the provided bytes, which can be rendered many times without repeating the simulation
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @return the unscaled colors and simulation results of the LifeHash
+     */
+    public static LifeHashModel makeModelFromData(byte[] data, LifeHashVersion version) {
+        return LifeHashGenerator.get().makeModelFromData(data, version);
+    }
 
-        while (history.size() < maxGenerations) {
-            CellGrid tempCellGrid = currentCellGrid;
-            currentCellGrid = nextCellGrid;
-            nextCellGrid = tempCellGrid;
+    /**
+     * Creates a LifeHashModel from the provided SHA256 hash, which can be rendered many times without repeating the simulation
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @return the unscaled colors and simulation results of the LifeHash
+     */
+    public static LifeHashModel makeModelFromDigest(byte[] digest, LifeHashVersion version) {
+        return LifeHashGenerator.get().makeModelFromDigest(digest, version);
+    }
 
-            ChangeGrid tempChangeGrid = currentChangeGrid;
-            currentChangeGrid = nextChangeGrid;
-            nextChangeGrid = tempChangeGrid;
+    /**
+     * Creates a LifeHashMipChain from the provided bytes, simulating the LifeHash once and rendering it at each module size
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @param format the pixel format to write
+     * @param moduleSizes the module size of each level
+     * @return the levels packed into a single array
+     */
+    public static LifeHashMipChain makeMipChainFromData(byte[] data, LifeHashVersion version, PixelFormat format, int... moduleSizes) {
+        return LifeHashGenerator.get().makeMipChainFromData(data, version, format, moduleSizes);
+    }
 
-            byte[] data = currentCellGrid.getData();
-            Sha256Hash hash = Sha256Hash.of(data);
-            if (historySet.contains(hash)) {
-                break;
-            }
-            historySet.add(hash);
-            history.add(data);
+    /**
+     * Creates a LifeHashMipChain from the provided SHA256 hash, simulating the LifeHash once and rendering it at each module size
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param format the pixel format to write
+     * @param moduleSizes the module size of each level
+     * @return the levels packed into a single array
+     */
+    public static LifeHashMipChain makeMipChainFromDigest(byte[] digest, LifeHashVersion version, PixelFormat format, int... moduleSizes) {
+        return LifeHashGenerator.get().makeMipChainFromDigest(digest, version, format, moduleSizes);
+    }
 
-            currentCellGrid.nextGeneration(currentChangeGrid, nextCellGrid, nextChangeGrid);
-        }
+    /**
+     * Creates a LifeHash.Image object of any width and height from the provided bytes, resampling the unscaled colors with the given filter
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param filter the filter to resample with
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public static Image makeResizedFromData(byte[] data, LifeHashVersion version, int width, int height, ResampleFilter filter, boolean hasAlpha) {
+        return LifeHashGenerator.get().makeResizedFromData(data, version, width, height, filter, hasAlpha);
+    }
 
-        FracGrid fracGrid = new FracGrid(size);
-        for (int i = 0; i < history.size(); i++) {
-            currentCellGrid.setData(history.get(i));
-            double frac = clamped(lerpFrom(0, history.size(), i + 1));
-            fracGrid.overlay(currentCellGrid, frac);
-        }
+    /**
+     * Creates a LifeHash.Image object of any width and height from the provided SHA256 hash, resampling the unscaled colors with the given filter
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param filter the filter to resample with
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public static Image makeResizedFromDigest(byte[] digest, LifeHashVersion version, int width, int height, ResampleFilter filter, boolean hasAlpha) {
+        return LifeHashGenerator.get().makeResizedFromDigest(digest, version, width, height, filter, hasAlpha);
+    }
 
-        // Normalizing the frac_grid to the range 0..1 was a step left out of .version1
-        // In some cases it can cause the full range of the gradient to go unused.
-        // This fixes the problem for the other versions, while remaining compatible
-        // with .version1.
-        if (version != LifeHashVersion.VERSION1) {
-            double minValue = Double.MAX_VALUE;
-            double maxValue = Double.MIN_VALUE;
+    /**
+     * Renders the LifeHash of the provided SHA256 hash into a byte array at any width and height, without allocating an image
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param filter the filter to resample with
+     * @param format the pixel format to write
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     */
+    public static void renderResizedFromDigest(byte[] digest, LifeHashVersion version, int width, int height, ResampleFilter filter, PixelFormat format,
+                                               byte[] dst, int offset, int stride) {
+        LifeHashGenerator.get().renderResizedFromDigest(digest, version, width, height, filter, format, dst, offset, stride);
+    }
 
-            for (Point point : fracGrid.getPoints()) {
-                double value = fracGrid.getValue(point);
-                minValue = Math.min(minValue, value);
-                maxValue = Math.max(maxValue, value);
-            }
+    /**
+     * Renders the LifeHash of the provided SHA256 hash into a byte array, without allocating an image
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param format the pixel format to write
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     * @see LifeHashGenerator#renderFromDigest(byte[], LifeHashVersion, int, PixelFormat, byte[], int, int)
+     */
+    public static void renderFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, PixelFormat format, byte[] dst, int offset, int stride) {
+        LifeHashGenerator.get().renderFromDigest(digest, version, moduleSize, format, dst, offset, stride);
+    }
 
-            for (Point point : fracGrid.getPoints()) {
-                double currentValue = fracGrid.getValue(point);
-                double value = lerpFrom(minValue, maxValue, currentValue);
-                fracGrid.setValue(value, point);
+    /**
+     * Renders the LifeHash of the provided SHA256 hash into an int array of 0xAARRGGBB pixels, without allocating an image
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param format PixelFormat.ARGB or PixelFormat.ARGB_PREMULTIPLIED
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of ints between the start of each row
+     * @see LifeHashGenerator#renderFromDigest(byte[], LifeHashVersion, int, PixelFormat, int[], int, int)
+     */
+    public static void renderFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, PixelFormat format, int[] dst, int offset, int stride) {
+        LifeHashGenerator.get().renderFromDigest(digest, version, moduleSize, format, dst, offset, stride);
+    }
+
+    /**
+     * Renders the LifeHash of the provided SHA256 hash into a heap or direct buffer, without allocating an image
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param format the pixel format to write
+     * @param dst the buffer to render into, which must hold the image below its limit
+     * @param offset the index in dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     * @see LifeHashGenerator#renderFromDigest(byte[], LifeHashVersion, int, PixelFormat, ByteBuffer, int, int)
+     */
+    public static void renderFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, PixelFormat format, ByteBuffer dst, int offset, int stride) {
+        LifeHashGenerator.get().renderFromDigest(digest, version, moduleSize, format, dst, offset, stride);
+    }
+
+    /**
+     * @param version the version of LifeHash
+     * @param moduleSize the size of the LifeHash
+     * @return the width and height in pixels of LifeHashes of the given version and module size
+     */
+    public static int getImageSize(LifeHashVersion version, int moduleSize) {
+        return LifeHashGenerator.getImageSize(version) * moduleSize;
+    }
+
+    /**
+     * Creates LifeHash.Image objects from each of the provided byte arrays, rendering them in parallel on the common ForkJoinPool
+     *
+     * @param data the byte arrays to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return objects representing the LifeHashes, in the same order as the input
+     */
+    public static List<Image> makeFromData(Collection<byte[]> data, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        return makeFromData(data, version, moduleSize, hasAlpha, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates LifeHash.Image objects from each of the provided byte arrays, rendering them in parallel on the provided executor
+     *
+     * @param data the byte arrays to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @param executor the executor to render on
+     * @return objects representing the LifeHashes, in the same order as the input
+     */
+    public static List<Image> makeFromData(Collection<byte[]> data, LifeHashVersion version, int moduleSize, boolean hasAlpha, Executor executor) {
+        return makeAll(data, true, version, moduleSize, hasAlpha, executor);
+    }
+
+    /**
+     * Creates LifeHash.Image objects from each of the provided SHA256 hashes, rendering them in parallel on the common ForkJoinPool
+     *
+     * @param digests 32 byte arrays representing SHA256 hashes to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return objects representing the LifeHashes, in the same order as the input
+     */
+    public static List<Image> makeFromDigests(Collection<byte[]> digests, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        return makeFromDigests(digests, version, moduleSize, hasAlpha, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates LifeHash.Image objects from each of the provided SHA256 hashes, rendering them in parallel on the provided executor
+     *
+     * @param digests 32 byte arrays representing SHA256 hashes to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @param executor the executor to render on
+     * @return objects representing the LifeHashes, in the same order as the input
+     */
+    public static List<Image> makeFromDigests(Collection<byte[]> digests, LifeHashVersion version, int moduleSize, boolean hasAlpha, Executor executor) {
+        return makeAll(digests, false, version, moduleSize, hasAlpha, executor);
+    }
+
+    private static List<Image> makeAll(Collection<byte[]> inputs, boolean hashInputs, LifeHashVersion version, int moduleSize, boolean hasAlpha, Executor executor) {
+        byte[][] items = inputs.toArray(new byte[0][]);
+        Image[] images = new Image[items.length];
+
+        renderAll(items.length, executor, (generator, i) -> {
+            if(hashInputs) {
+                images[i] = generator.makeFromData(items[i], version, moduleSize, hasAlpha);
+            } else {
+                images[i] = generator.makeFromDigest(items[i], version, moduleSize, hasAlpha);
             }
-        }
+        });
 
+        return List.of(images);
+    }
 
-        BitEnumerator entropy = new BitEnumerator(digest);
+    static void renderAll(int count, Executor executor, ObjIntConsumer<LifeHashGenerator> task) {
+        // Split the items into a few contiguous ranges per thread, each rendered with the generator of the thread it runs on,
+        // so no more generators are used than there are worker threads, and they are kept for later batches
+        int tasks = Math.min(count, Runtime.getRuntime().availableProcessors() * BATCH_TASKS_PER_THREAD);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+        for(int t = 0; t < tasks; t++) {
+            int start = (int)((long)count * t / tasks);
+            int end = (int)((long)count * (t + 1) / tasks);
+            futures[t] = CompletableFuture.runAsync(() -> {
+                LifeHashGenerator generator = LifeHashGenerator.get();
+                for(int i = start; i < end; i++) {
+                    task.accept(generator, i);
+                }
+            }, executor);
+        }
 
-        switch(version) {
-            case DETAILED ->
-                // Throw away a bit of entropy to ensure we generate different colors and patterns from .version1
-                    entropy.next();
-            case VERSION2 ->
-                // Throw away two bits of entropy to ensure we generate different colors and patterns from .version1 or .detailed.
-                    entropy.nextUint2();
-            default -> {
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch(CompletionException e) {
+            if(e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
+            throw e;
         }
+    }
 
-        ColorFunc gradient = selectGradient(entropy, version);
-        Pattern pattern = selectPattern(entropy, version);
-        ColorGrid color_grid = new ColorGrid(fracGrid, gradient, pattern);
+    /**
+     * Sets a listener to receive statistics for all LifeHashes created, except by generators with their own listener
+     *
+     * @param listener the listener, or null to remove the current listener
+     */
+    public static void setListener(LifeHashListener listener) {
+        LifeHash.listener = listener;
+    }
 
-        return makeImage(color_grid.size.width(), color_grid.size.height(), color_grid.colors(), moduleSize, hasAlpha);
+    static LifeHashListener getListener() {
+        return listener;
     }
 
-    static Image makeImage(int width, int height, List<Double> floatColors, int moduleSize, boolean hasAlpha) {
-        if (moduleSize == 0) {
+    static Image makeImage(int width, int height, int[] colors, int moduleSize, boolean hasAlpha) {
+        if (moduleSize < 1) {
             throw new IllegalArgumentException("Invalid module size.");
         }
 
-        int scaledWidth = width * moduleSize;
-        int scaledHeight = height * moduleSize;
-        int resultComponents = hasAlpha ? 4 : 3;
-        int scaledCapacity = scaledWidth * scaledHeight * resultComponents;
+        PixelFormat format = hasAlpha ? PixelFormat.RGBA : PixelFormat.RGB;
+        int rowLength = width * moduleSize * format.getBytesPerPixel();
+        byte[] data = new byte[rowLength * height * moduleSize];
+        PixelWriter.write(colors, width, height, moduleSize, format, data, 0, rowLength);
 
-        List<Byte> resultColors = new ArrayList<>(scaledCapacity);
-        for(int i = 0; i < scaledCapacity; i++) {
-            resultColors.add((byte)0);
-        }
+        return new Image(width * moduleSize, height * moduleSize, data, hasAlpha);
+    }
 
-        for (int targetY = 0; targetY < scaledWidth; targetY++) {
-            for (int targetX = 0; targetX < scaledHeight; targetX++) {
-                int sourceX = targetX / moduleSize;
-                int sourceY = targetY / moduleSize;
-                int sourceOffset = (sourceY * width + sourceX) * 3;
+    static Image scaleImage(Image image, int moduleSize, boolean hasAlpha) {
+        if (moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
 
-                int targetOffset = (targetY * scaledWidth + targetX) * resultComponents;
+        if (moduleSize == 1 && hasAlpha == image.hasAlpha) {
+            return image;
+        }
 
-                resultColors.set(targetOffset, (byte)(clamped(floatColors.get(sourceOffset)) * 255));
-                resultColors.set(targetOffset + 1, (byte)(clamped(floatColors.get(sourceOffset + 1)) * 255));
-                resultColors.set(targetOffset + 2, (byte)(clamped(floatColors.get(sourceOffset + 2)) * 255));
-                if (hasAlpha) {
-                    resultColors.set(targetOffset + 3, (byte)255);
+        int components = image.getComponents();
+        int scaledWidth = image.width * moduleSize;
+        int scaledHeight = image.height * moduleSize;
+        int resultComponents = hasAlpha ? 4 : 3;
+        int scaledRowLength = scaledWidth * resultComponents;
+
+        byte[] resultColors = new byte[scaledRowLength * scaledHeight];
+
+        int sourceOffset = 0;
+        for (int sourceY = 0; sourceY < image.height; sourceY++) {
+            int rowOffset = sourceY * moduleSize * scaledRowLength;
+            int targetOffset = rowOffset;
+            for (int sourceX = 0; sourceX < image.width; sourceX++) {
+                byte r = image.data[sourceOffset];
+                byte g = image.data[sourceOffset + 1];
+                byte b = image.data[sourceOffset + 2];
+                byte a = image.hasAlpha ? image.data[sourceOffset + 3] : (byte)255;
+                for (int i = 0; i < moduleSize; i++) {
+                    resultColors[targetOffset] = r;
+                    resultColors[targetOffset + 1] = g;
+                    resultColors[targetOffset + 2] = b;
+                    if (hasAlpha) {
+                        resultColors[targetOffset + 3] = a;
+                    }
+                    targetOffset += resultComponents;
                 }
+                sourceOffset += components;
+            }
+
+            // The remaining rows of the module are copies of the first
+            for (int i = 1; i < moduleSize; i++) {
+                System.arraycopy(resultColors, rowOffset, resultColors, rowOffset + i * scaledRowLength, scaledRowLength);
             }
         }
 
@@ -216,29 +460,159 @@ public class LifeHash {
      *
      * @param image the LifeHash.Image to use
      * @return a renderable image
+     * @deprecated use {@link AwtImages#getBufferedImage(Image)}, which also supports scaling and other image types
      */
+    @Deprecated
     public static BufferedImage getBufferedImage(Image image) {
-        BufferedImage bufferedImage = new BufferedImage(image.width, image.height, image.hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
-        for (int y = 0; y < image.height; y++) {
-            for (int x = 0; x < image.width; x++) {
-                int offset = (y * image.width + x) * (image.hasAlpha ? 4 : 3);
-                int r = image.colors.get(offset) & 0xFF;
-                int g = image.colors.get(offset + 1) & 0xFF;
-                int b = image.colors.get(offset + 2) & 0xFF;
-                int color;
-                if(image.hasAlpha) {
-                    int a = image.colors.get(offset + 3) & 0xFF;
-                    color = (a << 24) | (r << 16) | (g << 8) | b;
-                } else {
-                    color = (r << 16) | (g << 8) | b;
-                }
-                bufferedImage.setRGB(x, y, color);
+        return AwtImages.getBufferedImage(image);
+    }
+
+    /**
+     * A LifeHash image, stored as rows of RGB or RGBA pixels with one byte per component.
+     */
+    public static final class Image {
+        private final int width;
+        private final int height;
+        private final byte[] data;
+        private final boolean hasAlpha;
+
+        /**
+         * Creates an image backed by the provided array, which is not copied
+         *
+         * @param width the width in pixels
+         * @param height the height in pixels
+         * @param data the pixel data, width * height * (hasAlpha ? 4 : 3) bytes long
+         * @param hasAlpha whether each pixel has an alpha component
+         */
+        public Image(int width, int height, byte[] data, boolean hasAlpha) {
+            if(data.length != width * height * (hasAlpha ? 4 : 3)) {
+                throw new IllegalArgumentException("Invalid image data length.");
+            }
+
+            this.width = width;
+            this.height = height;
+            this.data = data;
+            this.hasAlpha = hasAlpha;
+        }
+
+        public Image(int width, int height, List<Byte> colors, boolean hasAlpha) {
+            this(width, height, toByteArray(colors), hasAlpha);
+        }
+
+        public int width() {
+            return width;
+        }
+
+        public int height() {
+            return height;
+        }
+
+        public boolean hasAlpha() {
+            return hasAlpha;
+        }
+
+        /**
+         * @return the number of bytes per pixel, 4 if the image has alpha and 3 otherwise
+         */
+        public int getComponents() {
+            return hasAlpha ? 4 : 3;
+        }
+
+        // The pixel data, without copying
+        byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @return an unmodifiable view of the pixel data
+         */
+        public List<Byte> colors() {
+            return new ColorsView(data);
+        }
+
+        /**
+         * @return a copy of the pixel data
+         */
+        public byte[] toByteArray() {
+            return data.clone();
+        }
+
+        /**
+         * @return a read-only buffer over the pixel data
+         */
+        public ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(data).asReadOnlyBuffer();
+        }
+
+        /**
+         * Copies a range of the pixel data into the provided array
+         *
+         * @param offset the offset into the pixel data
+         * @param dst the array to copy into
+         * @param dstOffset the offset into dst
+         * @param length the number of bytes to copy
+         */
+        public void getBytes(int offset, byte[] dst, int dstOffset, int length) {
+            System.arraycopy(data, offset, dst, dstOffset, length);
+        }
+
+        /**
+         * Copies a row of pixel data into the provided array
+         *
+         * @param y the row to copy
+         * @param dst the array to copy into, which must have space for width * getComponents() bytes
+         * @param dstOffset the offset into dst
+         */
+        public void getRow(int y, byte[] dst, int dstOffset) {
+            int rowLength = width * getComponents();
+            System.arraycopy(data, y * rowLength, dst, dstOffset, rowLength);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Image image)) {
+                return false;
             }
+            return width == image.width && height == image.height && hasAlpha == image.hasAlpha && Arrays.equals(data, image.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(width, height, hasAlpha, Arrays.hashCode(data));
         }
 
-        return bufferedImage;
+        @Override
+        public String toString() {
+            return "Image[width=" + width + ", height=" + height + ", hasAlpha=" + hasAlpha + "]";
+        }
+
+        private static byte[] toByteArray(List<Byte> colors) {
+            byte[] data = new byte[colors.size()];
+            for(int i = 0; i < data.length; i++) {
+                data[i] = colors.get(i);
+            }
+            return data;
+        }
     }
 
-    public record Image(int width, int height, List<Byte> colors, boolean hasAlpha) {
+    private static class ColorsView extends AbstractList<Byte> implements RandomAccess {
+        private final byte[] data;
+
+        ColorsView(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public Byte get(int index) {
+            return data[index];
+        }
+
+        @Override
+        public int size() {
+            return data.length;
+        }
     }
 }
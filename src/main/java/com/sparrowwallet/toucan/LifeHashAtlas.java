@@ -0,0 +1,292 @@
+package com.sparrowwallet.toucan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Many LifeHashes packed into a grid of tiles in a single raster, for use as a texture or sprite sheet.
+ * Tiles are separated from each other and from the edges of the raster by a padding of zeroed pixels,
+ * and are laid out left to right and top to bottom in the order of the digests they were rendered from.
+ * An atlas built into a file holds a mapping of the file until it is closed.
+ */
+public final class LifeHashAtlas implements Closeable {
+    private final int width;
+    private final int height;
+    private final PixelFormat format;
+    private ByteBuffer buffer;
+    private final List<Tile> tiles;
+
+    private LifeHashAtlas(int width, int height, PixelFormat format, ByteBuffer buffer, List<Tile> tiles) {
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.buffer = buffer;
+        this.tiles = tiles;
+    }
+
+    /**
+     * @return the width of the atlas in pixels
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return the height of the atlas in pixels
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return the pixel format of the raster
+     */
+    public PixelFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the number of bytes between the start of each row of the raster
+     */
+    public int getStride() {
+        return width * format.getBytesPerPixel();
+    }
+
+    /**
+     * @return the raster, height * getStride() bytes long, which is memory-mapped if the atlas was built into a file
+     * @throws IllegalStateException if the atlas has been closed
+     */
+    public ByteBuffer getBuffer() {
+        if(buffer == null) {
+            throw new IllegalStateException("Atlas has been closed.");
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * @return the position of each tile, in the same order as the digests
+     */
+    public List<Tile> getTiles() {
+        return tiles;
+    }
+
+    /**
+     * @param index the index of the digest
+     * @return the position of the tile rendered from the digest
+     */
+    public Tile getTile(int index) {
+        return tiles.get(index);
+    }
+
+    /**
+     * Releases the raster. For an atlas built into a file, the raster is written back to the file and the mapping is released,
+     * so that the file can then be deleted or replaced. Buffers returned by {@link #getBuffer()} must not be used afterwards.
+     * Closing an atlas more than once has no further effect.
+     */
+    @Override
+    public void close() {
+        ByteBuffer released = buffer;
+        buffer = null;
+        if(released instanceof MappedByteBuffer mapped) {
+            mapped.force();
+            unmap(mapped);
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        // A mapping can only be released on demand through sun.misc.Unsafe, which is looked up reflectively as it is not part of
+        // the Java SE API. Where it is not available, the mapping is released once the buffer has been garbage collected.
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+        } catch(ReflectiveOperationException | RuntimeException e) {
+            // Left to the garbage collector
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LifeHashAtlas[width=" + width + ", height=" + height + ", format=" + format + ", tiles=" + tiles.size() + "]";
+    }
+
+    /**
+     * The position and size in pixels of a tile within the atlas
+     */
+    public record Tile(int x, int y, int width, int height) {
+        /**
+         * @param stride the number of bytes between the start of each row of the atlas
+         * @param bytesPerPixel the number of bytes per pixel of the atlas
+         * @return the index in the raster of the top left pixel of the tile
+         */
+        public int getOffset(int stride, int bytesPerPixel) {
+            return y * stride + x * bytesPerPixel;
+        }
+    }
+
+    /**
+     * Configures and renders LifeHash atlases. Tiles are rendered in parallel, each directly into its own region of the raster.
+     */
+    public static final class Builder {
+        private LifeHashVersion version = LifeHashVersion.VERSION2;
+        private int moduleSize = 1;
+        private int columns = 16;
+        private int padding = 0;
+        private PixelFormat format = PixelFormat.RGBA;
+        private Executor executor = ForkJoinPool.commonPool();
+
+        public Builder() {
+        }
+
+        /**
+         * @param version the version of LifeHash to render, VERSION2 by default
+         * @return this builder
+         */
+        public Builder version(LifeHashVersion version) {
+            this.version = version;
+            return this;
+        }
+
+        /**
+         * @param moduleSize the module size of each tile, 1 by default
+         * @return this builder
+         */
+        public Builder moduleSize(int moduleSize) {
+            if(moduleSize < 1) {
+                throw new IllegalArgumentException("Invalid module size.");
+            }
+            this.moduleSize = moduleSize;
+            return this;
+        }
+
+        /**
+         * @param columns the number of tiles in each row of the atlas, 16 by default
+         * @return this builder
+         */
+        public Builder columns(int columns) {
+            if(columns < 1) {
+                throw new IllegalArgumentException("Atlas must have at least one column.");
+            }
+            this.columns = columns;
+            return this;
+        }
+
+        /**
+         * @param padding the number of pixels between tiles and around the edge of the atlas, 0 by default
+         * @return this builder
+         */
+        public Builder padding(int padding) {
+            if(padding < 0) {
+                throw new IllegalArgumentException("Padding cannot be negative.");
+            }
+            this.padding = padding;
+            return this;
+        }
+
+        /**
+         * @param format the pixel format of the raster, RGBA by default
+         * @return this builder
+         */
+        public Builder format(PixelFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * @param executor the executor to render tiles on, the common ForkJoinPool by default
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Renders an atlas into a heap buffer
+         *
+         * @param digests 32 byte arrays representing SHA256 hashes to use as input
+         * @return the rendered atlas
+         */
+        public LifeHashAtlas build(List<byte[]> digests) {
+            Layout layout = new Layout(digests.size());
+            return render(digests, layout, ByteBuffer.allocate(layout.getBytes()));
+        }
+
+        /**
+         * Renders an atlas directly into a memory-mapped file, which is created or replaced and contains only the raw raster.
+         * The atlas should be closed once it is no longer needed, to release the mapping.
+         *
+         * @param digests 32 byte arrays representing SHA256 hashes to use as input
+         * @param file the file to render into
+         * @return the rendered atlas, backed by the mapped file
+         * @throws IOException if the file could not be created or mapped
+         */
+        public LifeHashAtlas build(List<byte[]> digests, Path file) throws IOException {
+            Layout layout = new Layout(digests.size());
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping remains valid after the channel is closed
+                return render(digests, layout, channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.getBytes()));
+            }
+        }
+
+        private LifeHashAtlas render(List<byte[]> digests, Layout layout, ByteBuffer buffer) {
+            byte[][] items = digests.toArray(new byte[0][]);
+            int stride = layout.width * format.getBytesPerPixel();
+            List<Tile> tiles = new ArrayList<>(items.length);
+            for(int i = 0; i < items.length; i++) {
+                tiles.add(layout.getTile(i));
+            }
+
+            // Tiles are disjoint and written with absolute puts, so the threads can share the raster without locking
+            LifeHashVersion version = this.version;
+            int moduleSize = this.moduleSize;
+            PixelFormat format = this.format;
+            LifeHash.renderAll(items.length, executor, (generator, i) ->
+                    generator.renderFromDigest(items[i], version, moduleSize, format, buffer, tiles.get(i).getOffset(stride, format.getBytesPerPixel()), stride));
+
+            return new LifeHashAtlas(layout.width, layout.height, format, buffer, Collections.unmodifiableList(tiles));
+        }
+
+        private final class Layout {
+            private final int tileSize;
+            private final int columns;
+            private final int rows;
+            private final int width;
+            private final int height;
+
+            Layout(int count) {
+                tileSize = LifeHash.getImageSize(version, moduleSize);
+                columns = Math.max(1, Math.min(Builder.this.columns, count));
+                rows = (count + columns - 1) / columns;
+                width = columns * tileSize + (columns + 1) * padding;
+                height = rows * tileSize + (rows + 1) * padding;
+                if((long)width * height * format.getBytesPerPixel() > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Atlas is too large.");
+                }
+            }
+
+            int getBytes() {
+                return width * height * format.getBytesPerPixel();
+            }
+
+            Tile getTile(int index) {
+                int column = index % columns;
+                int row = index / columns;
+                return new Tile(padding + column * (tileSize + padding), padding + row * (tileSize + padding), tileSize, tileSize);
+            }
+        }
+    }
+}
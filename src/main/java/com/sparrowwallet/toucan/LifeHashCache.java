@@ -0,0 +1,175 @@
+package com.sparrowwallet.toucan;
+
+import com.sparrowwallet.toucan.impl.Sha256Hash;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread safe cache of LifeHash images. Each entry holds the unscaled color grid of a LifeHash,
+ * keyed by its digest and version, so one entry serves requests at any module size with or without alpha.
+ * Entries are evicted in least recently used order once their total size exceeds the configured number of bytes.
+ */
+public class LifeHashCache {
+    // Approximate size of the key, entry and image objects, in addition to the pixel data
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, LifeHash.Image> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates a cache that holds up to the provided number of bytes of LifeHash data
+     *
+     * @param maxBytes the maximum approximate size of the cached entries
+     */
+    public LifeHashCache(long maxBytes) {
+        if(maxBytes < 0) {
+            throw new IllegalArgumentException("Invalid cache size.");
+        }
+
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a cached LifeHash.Image for the provided String, creating it if necessary
+     *
+     * @param s the String to extract UTF-8 bytes from as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public LifeHash.Image makeFromUTF8(String s, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        return makeFromData(s.getBytes(StandardCharsets.UTF_8), version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Returns a cached LifeHash.Image for the provided bytes, creating it if necessary
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public LifeHash.Image makeFromData(byte[] data, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        return makeFromDigest(LifeHashGenerator.get().digestOf(data), version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Returns a cached LifeHash.Image for the provided SHA256 hash, creating it if necessary
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public LifeHash.Image makeFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        if(digest.length != 32) {
+            throw new IllegalArgumentException("Digest must be 32 bytes.");
+        }
+
+        Key key = new Key(Sha256Hash.wrap(digest.clone()), version);
+        LifeHash.Image image;
+        synchronized(entries) {
+            image = entries.get(key);
+        }
+
+        if(image != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+            // Render outside the lock so that other threads are not blocked by the simulation
+            image = LifeHashGenerator.get().makeFromDigest(digest, version, 1, false);
+            put(key, image);
+        }
+
+        return LifeHash.scaleImage(image, moduleSize, hasAlpha);
+    }
+
+    private void put(Key key, LifeHash.Image image) {
+        synchronized(entries) {
+            LifeHash.Image previous = entries.put(key, image);
+            if(previous != null) {
+                bytes -= weigh(previous);
+            }
+            bytes += weigh(image);
+
+            Iterator<LifeHash.Image> iter = entries.values().iterator();
+            while(bytes > maxBytes && iter.hasNext()) {
+                bytes -= weigh(iter.next());
+                iter.remove();
+                evictionCount.increment();
+            }
+        }
+    }
+
+    private static long weigh(LifeHash.Image image) {
+        return (long)image.width() * image.height() * image.getComponents() + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Removes all entries from the cache. The hit, miss and eviction counts are not reset.
+     */
+    public void clear() {
+        synchronized(entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * @return the number of entries in the cache
+     */
+    public int size() {
+        synchronized(entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the approximate size of the cached entries in bytes
+     */
+    public long getBytes() {
+        synchronized(entries) {
+            return bytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the number of requests served from the cache
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the number of requests that required a LifeHash to be created
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return the number of entries removed to keep the cache within its maximum size
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private record Key(Sha256Hash digest, LifeHashVersion version) {
+    }
+}
@@ -0,0 +1,627 @@
+package com.sparrowwallet.toucan;
+
+import com.sparrowwallet.toucan.impl.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+
+import static com.sparrowwallet.toucan.impl.Gradients.makeGradient;
+import static com.sparrowwallet.toucan.impl.Gradients.selectGradientFamily;
+import static com.sparrowwallet.toucan.impl.Patterns.selectPattern;
+
+/**
+ * Creates LifeHash images, keeping the simulation grids, state history and message digest from one image to the next.
+ * A generator must only be used by one thread at a time. The static methods of LifeHash use the generator owned
+ * by the calling thread, which is returned by {@link #get()}.
+ */
+public class LifeHashGenerator {
+    private static final ThreadLocal<LifeHashGenerator> threadGenerator = ThreadLocal.withInitial(LifeHashGenerator::new);
+
+    // Input is hashed in chunks of this size, and files at least this large are memory-mapped rather than read
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    private final MessageDigest messageDigest = Sha256Hash.newDigest();
+    private final byte[] dataDigest = new byte[Sha256Hash.LENGTH];
+    private final byte[] seed = new byte[Sha256Hash.LENGTH];
+    private final byte[] detailedSeed = new byte[Sha256Hash.LENGTH * 4];
+    private final LifeSimulation simulation = new LifeSimulation();
+    private FracGrid fracGrid;
+    private ColorGrid colorGrid;
+    private Resampler resampler;
+    private byte[] readArray;
+    private ByteBuffer readBuffer;
+    private LifeHashListener listener;
+
+    // The last image's selections and stage timings, reported to the listener once its output is written
+    private GradientFamily gradientFamily;
+    private Pattern pattern;
+    private long seedNanos;
+    private long simulationNanos;
+    private long fracGridNanos;
+    private long colorGridNanos;
+
+    public LifeHashGenerator() {
+    }
+
+    /**
+     * @return the generator owned by the calling thread
+     */
+    public static LifeHashGenerator get() {
+        return threadGenerator.get();
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the provided String
+     *
+     * @param s the String to extract UTF-8 bytes from as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public LifeHash.Image makeFromUTF8(String s, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        return makeFromData(s.getBytes(StandardCharsets.UTF_8), version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the provided bytes
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public LifeHash.Image makeFromData(byte[] data, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        messageDigest.update(data);
+        digest(dataDigest, 0);
+        return makeFromDigest(dataDigest, version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the remaining bytes of the provided stream, which is read in chunks and not closed
+     *
+     * @param input the stream to read the input from
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     * @throws IOException if the stream could not be read
+     */
+    public LifeHash.Image makeFromData(InputStream input, LifeHashVersion version, int moduleSize, boolean hasAlpha) throws IOException {
+        hash(input);
+        return makeFromDigest(dataDigest, version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the remaining bytes of the provided channel, which is read in chunks through a direct buffer and not closed
+     *
+     * @param input the channel to read the input from
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     * @throws IOException if the channel could not be read
+     */
+    public LifeHash.Image makeFromData(ReadableByteChannel input, LifeHashVersion version, int moduleSize, boolean hasAlpha) throws IOException {
+        hash(input);
+        return makeFromDigest(dataDigest, version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the contents of the provided file. Large files are memory-mapped, so heap use
+     * does not depend on the size of the file.
+     *
+     * @param path the file to read the input from
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     * @throws IOException if the file could not be read
+     */
+    public LifeHash.Image makeFromData(Path path, LifeHashVersion version, int moduleSize, boolean hasAlpha) throws IOException {
+        hash(path);
+        return makeFromDigest(dataDigest, version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object from the provided SHA256 hash
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public LifeHash.Image makeFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        LifeHashListener listener = getListener();
+        ColorGrid colorGrid = drawColorGrid(digest, version, listener);
+
+        long start = time(listener);
+        Size size = colorGrid.getSize();
+        LifeHash.Image image = LifeHash.makeImage(size.width(), size.height(), colorGrid.getColors(), moduleSize, hasAlpha);
+        report(listener, version, start, image.width() * image.height() * image.getComponents());
+
+        return image;
+    }
+
+    /**
+     * Creates a ScaledImage from the provided bytes, which holds only the unscaled colors of the LifeHash
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included in rows of RGB or RGBA pixel data
+     * @return a lazily scaled view of the LifeHash
+     */
+    public ScaledImage makeScaledFromData(byte[] data, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        messageDigest.update(data);
+        digest(dataDigest, 0);
+        return makeScaledFromDigest(dataDigest, version, moduleSize, hasAlpha);
+    }
+
+    /**
+     * Creates a ScaledImage from the provided SHA256 hash, which holds only the unscaled colors of the LifeHash
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included in rows of RGB or RGBA pixel data
+     * @return a lazily scaled view of the LifeHash
+     */
+    public ScaledImage makeScaledFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, boolean hasAlpha) {
+        LifeHashListener listener = getListener();
+        ColorGrid colorGrid = drawColorGrid(digest, version, listener);
+
+        long start = time(listener);
+        Size size = colorGrid.getSize();
+        ScaledImage image = new ScaledImage(size.width(), size.height(), colorGrid.getColors().clone(), moduleSize, hasAlpha);
+        report(listener, version, start, size.width() * size.height() * Integer.BYTES);
+
+        return image;
+    }
+
+    /**
+     * Creates a LifeHashModel from the provided bytes, which can be rendered many times without repeating the simulation
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @return the unscaled colors and simulation results of the LifeHash
+     */
+    public LifeHashModel makeModelFromData(byte[] data, LifeHashVersion version) {
+        messageDigest.update(data);
+        digest(dataDigest, 0);
+        return makeModelFromDigest(dataDigest, version);
+    }
+
+    /**
+     * Creates a LifeHashModel from the provided SHA256 hash, which can be rendered many times without repeating the simulation
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @return the unscaled colors and simulation results of the LifeHash
+     */
+    public LifeHashModel makeModelFromDigest(byte[] digest, LifeHashVersion version) {
+        LifeHashListener listener = getListener();
+        ColorGrid colorGrid = drawColorGrid(digest, version, listener);
+
+        long start = time(listener);
+        Size size = colorGrid.getSize();
+        LifeHashModel model = new LifeHashModel(version, digest.clone(), size.width(), size.height(), colorGrid.getColors().clone(),
+                gradientFamily, pattern, simulation.getGenerations(), simulation.isRepeated());
+        report(listener, version, start, size.width() * size.height() * Integer.BYTES);
+
+        return model;
+    }
+
+    /**
+     * Creates a LifeHashMipChain from the provided bytes, simulating the LifeHash once and rendering it at each module size
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @param format the pixel format to write
+     * @param moduleSizes the module size of each level
+     * @return the levels packed into a single array
+     */
+    public LifeHashMipChain makeMipChainFromData(byte[] data, LifeHashVersion version, PixelFormat format, int... moduleSizes) {
+        messageDigest.update(data);
+        digest(dataDigest, 0);
+        return makeMipChainFromDigest(dataDigest, version, format, moduleSizes);
+    }
+
+    /**
+     * Creates a LifeHashMipChain from the provided SHA256 hash, simulating the LifeHash once and rendering it at each module size
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param format the pixel format to write
+     * @param moduleSizes the module size of each level
+     * @return the levels packed into a single array
+     */
+    public LifeHashMipChain makeMipChainFromDigest(byte[] digest, LifeHashVersion version, PixelFormat format, int... moduleSizes) {
+        LifeHashListener listener = getListener();
+        ColorGrid colorGrid = drawColorGrid(digest, version, listener);
+
+        long start = time(listener);
+        Size size = colorGrid.getSize();
+        LifeHashMipChain mipChain = LifeHashMipChain.render(colorGrid.getColors(), size.width(), size.height(), format, moduleSizes);
+        report(listener, version, start, mipChain.getBytes());
+
+        return mipChain;
+    }
+
+    /**
+     * Creates a LifeHash.Image object of any width and height from the provided bytes, resampling the unscaled colors with the given filter
+     *
+     * @param data the bytes to use as input
+     * @param version the version of LifeHash to use
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param filter the filter to resample with
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public LifeHash.Image makeResizedFromData(byte[] data, LifeHashVersion version, int width, int height, ResampleFilter filter, boolean hasAlpha) {
+        messageDigest.update(data);
+        digest(dataDigest, 0);
+        return makeResizedFromDigest(dataDigest, version, width, height, filter, hasAlpha);
+    }
+
+    /**
+     * Creates a LifeHash.Image object of any width and height from the provided SHA256 hash, resampling the unscaled colors with the given filter
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param filter the filter to resample with
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash
+     */
+    public LifeHash.Image makeResizedFromDigest(byte[] digest, LifeHashVersion version, int width, int height, ResampleFilter filter, boolean hasAlpha) {
+        PixelFormat format = hasAlpha ? PixelFormat.RGBA : PixelFormat.RGB;
+        byte[] data = new byte[width * height * format.getBytesPerPixel()];
+        renderResizedFromDigest(digest, version, width, height, filter, format, data, 0, width * format.getBytesPerPixel());
+        return new LifeHash.Image(width, height, data, hasAlpha);
+    }
+
+    /**
+     * Renders the LifeHash of the provided SHA256 hash into a byte array at any width and height, resampling the unscaled colors
+     * with the given filter. Row y of the image starts at offset + y * stride.
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param filter the filter to resample with
+     * @param format the pixel format to write
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     */
+    public void renderResizedFromDigest(byte[] digest, LifeHashVersion version, int width, int height, ResampleFilter filter, PixelFormat format,
+                                        byte[] dst, int offset, int stride) {
+        if(width < 1 || height < 1) {
+            throw new IllegalArgumentException("Invalid target size.");
+        }
+
+        LifeHashListener listener = getListener();
+        ColorGrid colorGrid = drawColorGrid(digest, version, listener);
+
+        long start = time(listener);
+        Size size = colorGrid.getSize();
+        resample(colorGrid.getColors(), size.width(), size.height(), width, height, filter, format, dst, offset, stride);
+        report(listener, version, start, width * height * format.getBytesPerPixel());
+    }
+
+    void resample(int[] colors, int sourceWidth, int sourceHeight, int width, int height, ResampleFilter filter, PixelFormat format,
+                  byte[] dst, int offset, int stride) {
+        if(resampler == null || !resampler.matches(sourceWidth, sourceHeight, width, height, filter)) {
+            resampler = new Resampler(sourceWidth, sourceHeight, width, height, filter);
+        }
+        resampler.resample(colors, format, dst, offset, stride);
+    }
+
+    /**
+     * Renders the LifeHash of the provided SHA256 hash into a byte array. Row y of the image starts at offset + y * stride,
+     * and the image is {@link LifeHash#getImageSize(LifeHashVersion, int)} pixels square.
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param format the pixel format to write
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     */
+    public void renderFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, PixelFormat format, byte[] dst, int offset, int stride) {
+        LifeHashListener listener = getListener();
+        ColorGrid colorGrid = drawColorGrid(digest, version, listener);
+
+        long start = time(listener);
+        Size size = colorGrid.getSize();
+        PixelWriter.write(colorGrid.getColors(), size.width(), size.height(), moduleSize, format, dst, offset, stride);
+        report(listener, version, start, getImageBytes(size, moduleSize, format.getBytesPerPixel()));
+    }
+
+    /**
+     * Renders the LifeHash of the provided SHA256 hash into an int array of 0xAARRGGBB pixels. Row y of the image starts at
+     * offset + y * stride, and the image is {@link LifeHash#getImageSize(LifeHashVersion, int)} pixels square.
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param format PixelFormat.ARGB or PixelFormat.ARGB_PREMULTIPLIED
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of ints between the start of each row
+     */
+    public void renderFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, PixelFormat format, int[] dst, int offset, int stride) {
+        if(!format.isIntFormat()) {
+            throw new IllegalArgumentException("Only ARGB formats can be written to an int array.");
+        }
+
+        LifeHashListener listener = getListener();
+        ColorGrid colorGrid = drawColorGrid(digest, version, listener);
+
+        long start = time(listener);
+        Size size = colorGrid.getSize();
+        PixelWriter.write(colorGrid.getColors(), size.width(), size.height(), moduleSize, format, dst, offset, stride);
+        report(listener, version, start, getImageBytes(size, moduleSize, Integer.BYTES));
+    }
+
+    /**
+     * Renders the LifeHash of the provided SHA256 hash into a heap or direct buffer, without changing its position or limit.
+     * Row y of the image starts at index offset + y * stride, and the image is {@link LifeHash#getImageSize(LifeHashVersion, int)} pixels square.
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param format the pixel format to write
+     * @param dst the buffer to render into, which must hold the image below its limit
+     * @param offset the index in dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     */
+    public void renderFromDigest(byte[] digest, LifeHashVersion version, int moduleSize, PixelFormat format, ByteBuffer dst, int offset, int stride) {
+        LifeHashListener listener = getListener();
+        ColorGrid colorGrid = drawColorGrid(digest, version, listener);
+
+        long start = time(listener);
+        Size size = colorGrid.getSize();
+        PixelWriter.write(colorGrid.getColors(), size.width(), size.height(), moduleSize, format, dst, offset, stride);
+        report(listener, version, start, getImageBytes(size, moduleSize, format.getBytesPerPixel()));
+    }
+
+    ColorGrid drawColorGrid(byte[] digest, LifeHashVersion version, LifeHashListener listener) {
+        if(digest.length != 32) {
+            throw new IllegalArgumentException("Digest must be 32 bytes.");
+        }
+
+        Size size = getSize(version);
+        int maxGenerations = getMaxGenerations(version);
+
+        long start = time(listener);
+
+        byte[] seed = makeSeed(digest, version);
+        long seeded = time(listener);
+
+        simulation.run(seed, size, maxGenerations);
+        long simulated = time(listener);
+
+        if(fracGrid == null || !fracGrid.getSize().equals(size)) {
+            fracGrid = new FracGrid(size);
+        }
+        fracGrid.setGenerations(simulation.getLastAliveGenerations(), simulation.getGenerations());
+
+        // Normalizing the frac_grid to the range 0..1 was a step left out of .version1
+        // In some cases it can cause the full range of the gradient to go unused.
+        // This fixes the problem for the other versions, while remaining compatible
+        // with .version1.
+        if (version != LifeHashVersion.VERSION1) {
+            fracGrid.normalize();
+        }
+        long fracGridFilled = time(listener);
+
+        BitEnumerator entropy = getEntropy(digest, version);
+        gradientFamily = selectGradientFamily(entropy, version);
+        ColorFunc gradient = makeGradient(gradientFamily, entropy, version);
+        pattern = selectPattern(entropy, version);
+
+        Size colorGridSize = ColorGrid.targetSize(size, pattern);
+        if(colorGrid == null || !colorGrid.getSize().equals(colorGridSize)) {
+            colorGrid = new ColorGrid(colorGridSize);
+        }
+        colorGrid.draw(fracGrid, gradient, pattern);
+        long colorGridFilled = time(listener);
+
+        seedNanos = seeded - start;
+        simulationNanos = simulated - seeded;
+        fracGridNanos = fracGridFilled - simulated;
+        colorGridNanos = colorGridFilled - fracGridFilled;
+
+        return colorGrid;
+    }
+
+    void report(LifeHashListener listener, LifeHashVersion version, long imageStart, int imageBytes) {
+        if(listener != null) {
+            listener.onRender(new LifeHashStatistics(version, simulation.getGenerations(), simulation.isRepeated(), gradientFamily, pattern,
+                    seedNanos, simulationNanos, fracGridNanos, colorGridNanos, time(listener) - imageStart, imageBytes));
+        }
+    }
+
+    private static int getImageBytes(Size size, int moduleSize, int bytesPerPixel) {
+        return size.width() * size.height() * moduleSize * moduleSize * bytesPerPixel;
+    }
+
+    /**
+     * Sets a listener to receive statistics for the LifeHashes created by this generator, in place of the listener set with
+     * {@link LifeHash#setListener(LifeHashListener)}
+     *
+     * @param listener the listener, or null to use the listener set on LifeHash
+     */
+    public void setListener(LifeHashListener listener) {
+        this.listener = listener;
+    }
+
+    LifeHashListener getListener() {
+        return listener != null ? listener : LifeHash.getListener();
+    }
+
+    static long time(LifeHashListener listener) {
+        return listener == null ? 0L : System.nanoTime();
+    }
+
+    static int getImageSize(LifeHashVersion version) {
+        Size size = getSize(version);
+        // Only the fiducial versions draw without mirroring the grid into a symmetric pattern
+        return switch(version) {
+            case VERSION1, VERSION2, DETAILED -> size.width() * 2;
+            case FIDUCIAL, GRAYSCALE_FIDUCIAL -> size.width();
+        };
+    }
+
+    static Size getSize(LifeHashVersion version) {
+        return switch(version) {
+            case VERSION1, VERSION2 -> new Size(16, 16);
+            case DETAILED, FIDUCIAL, GRAYSCALE_FIDUCIAL -> new Size(32, 32);
+        };
+    }
+
+    static int getMaxGenerations(LifeHashVersion version) {
+        return switch(version) {
+            case VERSION1, VERSION2 -> 150;
+            case DETAILED, FIDUCIAL, GRAYSCALE_FIDUCIAL -> 300;
+        };
+    }
+
+    static BitEnumerator getEntropy(byte[] digest, LifeHashVersion version) {
+        BitEnumerator entropy = new BitEnumerator(digest);
+
+        switch(version) {
+            case DETAILED ->
+                // Throw away a bit of entropy to ensure we generate different colors and patterns from .version1
+                    entropy.next();
+            case VERSION2 ->
+                // Throw away two bits of entropy to ensure we generate different colors and patterns from .version1 or .detailed.
+                    entropy.nextUint2();
+            default -> {
+            }
+        }
+
+        return entropy;
+    }
+
+    byte[] makeSeed(byte[] digest, LifeHashVersion version) {
+        switch(version) {
+            case VERSION1 -> {
+                return digest;
+            }
+            case VERSION2 -> {
+                // Ensure that .version2 in no way resembles .version1
+                hash(digest, 0, seed, 0);
+                return seed;
+            }
+            case DETAILED, FIDUCIAL, GRAYSCALE_FIDUCIAL -> {
+                // Ensure that grayscale fiducials in no way resemble the regular color fiducials
+                if(version == LifeHashVersion.GRAYSCALE_FIDUCIAL) {
+                    hash(digest, 0, detailedSeed, 0);
+                } else {
+                    System.arraycopy(digest, 0, detailedSeed, 0, Sha256Hash.LENGTH);
+                }
+                hash(detailedSeed, 0, detailedSeed, Sha256Hash.LENGTH);
+                hash(detailedSeed, Sha256Hash.LENGTH, detailedSeed, Sha256Hash.LENGTH * 2);
+                hash(detailedSeed, Sha256Hash.LENGTH * 2, detailedSeed, Sha256Hash.LENGTH * 3);
+                return detailedSeed;
+            }
+            default -> throw new IllegalArgumentException("Invalid version.");
+        }
+    }
+
+    byte[] digestOf(byte[] data) {
+        messageDigest.update(data);
+        digest(dataDigest, 0);
+        return dataDigest.clone();
+    }
+
+    byte[] digestOf(Path path) throws IOException {
+        hash(path);
+        return dataDigest.clone();
+    }
+
+    // Each of the following hashes its input into dataDigest, leaving the message digest reset even if reading fails
+    private void hash(InputStream input) throws IOException {
+        if(readArray == null) {
+            readArray = new byte[CHUNK_SIZE];
+        }
+
+        try {
+            int read;
+            while((read = input.read(readArray)) != -1) {
+                messageDigest.update(readArray, 0, read);
+            }
+            digest(dataDigest, 0);
+        } finally {
+            messageDigest.reset();
+        }
+    }
+
+    private void hash(ReadableByteChannel input) throws IOException {
+        if(readBuffer == null) {
+            readBuffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        }
+
+        try {
+            while(input.read(readBuffer.clear()) != -1) {
+                messageDigest.update(readBuffer.flip());
+            }
+            digest(dataDigest, 0);
+        } finally {
+            messageDigest.reset();
+        }
+    }
+
+    private void hash(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < MAP_THRESHOLD) {
+                hash(channel);
+                return;
+            }
+
+            try {
+                // Map the file a window at a time so that very large files do not need a contiguous address range
+                for(long position = 0; position < size; position += MAP_WINDOW) {
+                    MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+                    messageDigest.update(window);
+                }
+                digest(dataDigest, 0);
+            } finally {
+                messageDigest.reset();
+            }
+        }
+    }
+
+    private void hash(byte[] input, int offset, byte[] output, int outputOffset) {
+        messageDigest.update(input, offset, Sha256Hash.LENGTH);
+        digest(output, outputOffset);
+    }
+
+    private void digest(byte[] output, int outputOffset) {
+        try {
+            messageDigest.digest(output, outputOffset, Sha256Hash.LENGTH);
+        } catch(DigestException e) {
+            throw new IllegalStateException(e); // Can't happen.
+        }
+    }
+}
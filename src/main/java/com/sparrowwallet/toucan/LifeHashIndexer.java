@@ -0,0 +1,313 @@
+package com.sparrowwallet.toucan;
+
+import com.sparrowwallet.toucan.impl.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Fingerprints every file in a directory tree with a LifeHash. Each file is hashed through a streaming or memory-mapped read,
+ * and the LifeHash of its digest is written as a PNG image named after the digest. A manifest mapping each file to its digest
+ * and image is written alongside the images.
+ * Files are indexed concurrently, on virtual threads where the runtime provides them, with a bounded number of reads in progress
+ * at once. A file is rendered as soon as it has been read, so reading and rendering overlap.
+ */
+public final class LifeHashIndexer {
+    /**
+     * The name of the manifest written to the output directory. Each line holds the hex digest of a file, the name of its image
+     * and its path relative to the indexed directory with / as the separator, separated by tabs, in path order.
+     * Backslashes, tabs, line feeds and carriage returns in paths are escaped as {@code \\}, {@code \t}, {@code \n} and {@code \r}.
+     * The manifest is only written once every file has been indexed, and replaces any previous manifest.
+     */
+    public static final String MANIFEST_FILE = "manifest.txt";
+
+    private final LifeHashVersion version;
+    private final int moduleSize;
+    private final boolean hasAlpha;
+    private final PngEncoder encoder;
+    private final int concurrentReads;
+    private final Executor executor;
+
+    private LifeHashIndexer(Builder builder) {
+        this.version = builder.version;
+        this.moduleSize = builder.moduleSize;
+        this.hasAlpha = builder.hasAlpha;
+        this.encoder = builder.encoder;
+        this.concurrentReads = builder.concurrentReads;
+        this.executor = builder.executor;
+    }
+
+    /**
+     * Indexes every regular file under a directory, excluding any files within the output directory
+     *
+     * @param root the directory to index
+     * @param outputDirectory the directory to write images and the manifest to, which is created if necessary
+     * @return an entry for each file, in path order
+     * @throws IOException if the directory could not be walked, or a file could not be read or written
+     */
+    public List<Entry> index(Path root, Path outputDirectory) throws IOException {
+        return index(root, outputDirectory, new ConcurrentLinkedQueue<>());
+    }
+
+    List<Entry> index(Path root, Path outputDirectory, Queue<LifeHashGenerator> generators) throws IOException {
+        Path output = outputDirectory.toAbsolutePath().normalize();
+        List<Path> files;
+        try(Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile).filter(path -> !path.toAbsolutePath().normalize().startsWith(output)).sorted().toList();
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.createDirectories(outputDirectory);
+
+        Entry[] entries = new Entry[files.size()];
+        Semaphore reads = new Semaphore(concurrentReads);
+        // Generators are pooled, and a task only takes one once it holds a permit, so no more than getMaxGenerators() are
+        // created however many tasks the executor runs at once
+        Semaphore workers = new Semaphore(getMaxGenerators());
+        Set<String> rendered = ConcurrentHashMap.newKeySet();
+
+        ExecutorService ownExecutor = executor == null ? newExecutor() : null;
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[files.size()];
+            for(int i = 0; i < futures.length; i++) {
+                int item = i;
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        acquire(workers, files.get(item));
+                        try {
+                            LifeHashGenerator generator = generators.poll();
+                            if(generator == null) {
+                                generator = new LifeHashGenerator();
+                            }
+                            try {
+                                entries[item] = indexFile(generator, root, files.get(item), outputDirectory, reads, rendered);
+                            } finally {
+                                generators.add(generator);
+                            }
+                        } finally {
+                            workers.release();
+                        }
+                    } catch(IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, ownExecutor == null ? executor : ownExecutor);
+            }
+            CompletableFuture.allOf(futures).join();
+        } catch(CompletionException e) {
+            if(e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            if(e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        } finally {
+            if(ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+
+        // Write the manifest alongside and then move it into place, so a failed write never leaves a partial manifest
+        Path manifest = outputDirectory.resolve(MANIFEST_FILE);
+        Path partial = outputDirectory.resolve(MANIFEST_FILE + ".tmp");
+        try {
+            try(BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                for(Entry entry : entries) {
+                    writer.write(entry.digest() + "\t" + entry.image().getFileName() + "\t" + getManifestPath(entry.path()));
+                    writer.newLine();
+                }
+            }
+            Files.move(partial, manifest, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+
+        return List.of(entries);
+    }
+
+    private Entry indexFile(LifeHashGenerator generator, Path root, Path file, Path outputDirectory, Semaphore reads, Set<String> rendered) throws IOException {
+        byte[] digest;
+        acquire(reads, file);
+        try {
+            digest = generator.digestOf(file);
+        } finally {
+            reads.release();
+        }
+
+        // Files with the same contents share an image, which is only rendered once
+        String hex = Utils.bytesToHex(digest);
+        Path image = outputDirectory.resolve(hex + ".png");
+        if(rendered.add(hex)) {
+            try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(image))) {
+                encoder.encode(generator, digest, version, moduleSize, hasAlpha, out);
+            }
+        }
+
+        return new Entry(root.relativize(file), hex, image);
+    }
+
+    /**
+     * @return the maximum number of generators created by each call to index, one for each concurrent read and one for each
+     *         processor to render with
+     */
+    int getMaxGenerators() {
+        return concurrentReads + Runtime.getRuntime().availableProcessors();
+    }
+
+    private static void acquire(Semaphore semaphore, Path file) throws InterruptedIOException {
+        try {
+            semaphore.acquire();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to index " + file);
+        }
+    }
+
+    static String getManifestPath(Path path) {
+        StringBuilder builder = new StringBuilder();
+        for(Path name : path) {
+            if(builder.length() > 0) {
+                builder.append('/');
+            }
+            // Escape the characters that would otherwise break the manifest into the wrong fields or lines
+            for(char c : name.toString().toCharArray()) {
+                switch(c) {
+                    case '\\' -> builder.append("\\\\");
+                    case '\t' -> builder.append("\\t");
+                    case '\n' -> builder.append("\\n");
+                    case '\r' -> builder.append("\\r");
+                    default -> builder.append(c);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private ExecutorService newExecutor() {
+        // Virtual threads are only available from Java 21, so are looked up reflectively
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch(ReflectiveOperationException | RuntimeException e) {
+            // Enough platform threads to keep every core rendering while the permitted reads are blocked
+            return Executors.newFixedThreadPool(getMaxGenerators(), runnable -> {
+                Thread thread = new Thread(runnable, "LifeHashIndexer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * An indexed file
+     *
+     * @param path the path of the file relative to the indexed directory
+     * @param digest the SHA256 hash of the file as a hex string
+     * @param image the path of the file's LifeHash image in the output directory
+     */
+    public record Entry(Path path, String digest, Path image) {
+    }
+
+    /**
+     * Configures LifeHash indexers
+     */
+    public static final class Builder {
+        private LifeHashVersion version = LifeHashVersion.VERSION2;
+        private int moduleSize = 1;
+        private boolean hasAlpha = false;
+        private PngEncoder encoder = new PngEncoder();
+        private int concurrentReads = 8;
+        private Executor executor;
+
+        public Builder() {
+        }
+
+        /**
+         * @param version the version of LifeHash to render, VERSION2 by default
+         * @return this builder
+         */
+        public Builder version(LifeHashVersion version) {
+            this.version = version;
+            return this;
+        }
+
+        /**
+         * @param moduleSize the module size of each image, 1 by default
+         * @return this builder
+         */
+        public Builder moduleSize(int moduleSize) {
+            if(moduleSize < 1) {
+                throw new IllegalArgumentException("Invalid module size.");
+            }
+            this.moduleSize = moduleSize;
+            return this;
+        }
+
+        /**
+         * @param hasAlpha whether to write RGBA rather than RGB images, false by default
+         * @return this builder
+         */
+        public Builder hasAlpha(boolean hasAlpha) {
+            this.hasAlpha = hasAlpha;
+            return this;
+        }
+
+        /**
+         * @param encoder the encoder to write images with, using the default deflate level and adaptive filtering by default
+         * @return this builder
+         */
+        public Builder encoder(PngEncoder encoder) {
+            this.encoder = encoder;
+            return this;
+        }
+
+        /**
+         * @param concurrentReads the maximum number of files read at once, 8 by default
+         * @return this builder
+         */
+        public Builder concurrentReads(int concurrentReads) {
+            if(concurrentReads < 1) {
+                throw new IllegalArgumentException("At least one concurrent read is required.");
+            }
+            this.concurrentReads = concurrentReads;
+            return this;
+        }
+
+        /**
+         * @param executor the executor to index files on, which must be able to run more tasks at once than the number of
+         *                 concurrent reads for rendering to overlap reading. By default, each call to index uses a new virtual
+         *                 thread per file, or a fixed pool of platform threads where virtual threads are not available.
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @return an indexer with this configuration
+         */
+        public LifeHashIndexer build() {
+            return new LifeHashIndexer(this);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.sparrowwallet.toucan;
+
+/**
+ * Receives timings and statistics for LifeHashes as they are created. A listener is called on the thread
+ * that created the LifeHash, after it has been created, and should return quickly.
+ */
+public interface LifeHashListener {
+    /**
+     * Called after a LifeHash.Image has been created
+     *
+     * @param statistics the timings and statistics for the LifeHash
+     */
+    void onRender(LifeHashStatistics statistics);
+
+    /**
+     * Called after a LifeHash.Image has been converted to a java.awt.image.BufferedImage
+     *
+     * @param width the width of the BufferedImage
+     * @param height the height of the BufferedImage
+     * @param imageType the type of the BufferedImage
+     * @param nanos the time taken to create the BufferedImage
+     */
+    default void onBufferedImage(int width, int height, int imageType, long nanos) {
+    }
+}
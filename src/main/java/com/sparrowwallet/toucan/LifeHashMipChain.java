@@ -0,0 +1,130 @@
+package com.sparrowwallet.toucan;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A LifeHash rendered at several module sizes, with every level packed one after another into a single array.
+ * Each level is scaled directly from the unscaled colors, writing each module row once and copying it into the
+ * remaining rows of the module, so the chain costs little more than rendering its largest level alone.
+ */
+public final class LifeHashMipChain {
+    private final PixelFormat format;
+    private final byte[] data;
+    private final List<Level> levels;
+
+    private LifeHashMipChain(PixelFormat format, byte[] data, List<Level> levels) {
+        this.format = format;
+        this.data = data;
+        this.levels = levels;
+    }
+
+    static LifeHashMipChain render(int[] colors, int width, int height, PixelFormat format, int[] moduleSizes) {
+        if(moduleSizes.length == 0) {
+            throw new IllegalArgumentException("At least one module size is required.");
+        }
+
+        List<Level> levels = new ArrayList<>(moduleSizes.length);
+        long offset = 0;
+        for(int moduleSize : moduleSizes) {
+            if(moduleSize < 1) {
+                throw new IllegalArgumentException("Invalid module size.");
+            }
+            long bytes = (long)width * moduleSize * height * moduleSize * format.getBytesPerPixel();
+            if(offset + bytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Mip chain is too large.");
+            }
+            levels.add(new Level(moduleSize, width * moduleSize, height * moduleSize, (int)offset, width * moduleSize * format.getBytesPerPixel()));
+            offset += bytes;
+        }
+
+        byte[] data = new byte[(int)offset];
+        for(Level level : levels) {
+            PixelWriter.write(colors, width, height, level.moduleSize(), format, data, level.offset(), level.stride());
+        }
+
+        return new LifeHashMipChain(format, data, Collections.unmodifiableList(levels));
+    }
+
+    /**
+     * @return the pixel format of every level
+     */
+    public PixelFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the levels in the order of the module sizes they were rendered at
+     */
+    public List<Level> getLevels() {
+        return levels;
+    }
+
+    /**
+     * @param index the index of the level
+     * @return the level rendered at the module size with the given index
+     */
+    public Level getLevel(int index) {
+        return levels.get(index);
+    }
+
+    /**
+     * @return the total size in bytes of all levels
+     */
+    public int getBytes() {
+        return data.length;
+    }
+
+    /**
+     * @return a read-only buffer over every level, in which each level starts at its offset
+     */
+    public ByteBuffer getBuffer() {
+        return ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param index the index of the level
+     * @return a read-only buffer over only the pixels of the level, with rows of {@link Level#stride()} bytes
+     */
+    public ByteBuffer getBuffer(int index) {
+        Level level = levels.get(index);
+        return ByteBuffer.wrap(data, level.offset(), level.getBytes()).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies the pixels of a level into the provided array
+     *
+     * @param index the index of the level
+     * @param dst the array to copy into, which must have space for the getBytes() bytes of the level
+     * @param dstOffset the offset into dst
+     */
+    public void getPixels(int index, byte[] dst, int dstOffset) {
+        Level level = levels.get(index);
+        System.arraycopy(data, level.offset(), dst, dstOffset, level.getBytes());
+    }
+
+    @Override
+    public String toString() {
+        return "LifeHashMipChain[format=" + format + ", levels=" + levels + "]";
+    }
+
+    /**
+     * The module size, size in pixels and position within the chain of one level
+     *
+     * @param moduleSize the width and height in pixels of each module
+     * @param width the width of the level in pixels
+     * @param height the height of the level in pixels
+     * @param offset the index of the first pixel of the level in the buffer returned by {@link #getBuffer()}
+     * @param stride the number of bytes between the start of each row of the level
+     */
+    public record Level(int moduleSize, int width, int height, int offset, int stride) {
+        /**
+         * @return the size in bytes of the level
+         */
+        public int getBytes() {
+            return stride * height;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.sparrowwallet.toucan;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The result of simulating a LifeHash: the unscaled color grid along with the gradient, pattern and generation count
+ * selected for it. A model can be rendered any number of times at different module sizes, sizes and pixel formats,
+ * each of which only scales or resamples the colors without repeating the hashing and simulation.
+ * A model is immutable and can be shared between threads.
+ */
+public final class LifeHashModel {
+    private final LifeHashVersion version;
+    private final byte[] digest;
+    private final int width;
+    private final int height;
+    private final int[] colors;
+    private final GradientFamily gradientFamily;
+    private final Pattern pattern;
+    private final int generations;
+    private final boolean repeated;
+
+    LifeHashModel(LifeHashVersion version, byte[] digest, int width, int height, int[] colors, GradientFamily gradientFamily, Pattern pattern,
+                  int generations, boolean repeated) {
+        this.version = version;
+        this.digest = digest;
+        this.width = width;
+        this.height = height;
+        this.colors = colors;
+        this.gradientFamily = gradientFamily;
+        this.pattern = pattern;
+        this.generations = generations;
+        this.repeated = repeated;
+    }
+
+    /**
+     * @return the version of LifeHash simulated
+     */
+    public LifeHashVersion getVersion() {
+        return version;
+    }
+
+    /**
+     * @return a copy of the SHA256 hash the LifeHash was created from
+     */
+    public byte[] getDigest() {
+        return digest.clone();
+    }
+
+    /**
+     * @return the width of the color grid in modules
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return the height of the color grid in modules
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @param x the x coordinate of the module
+     * @param y the y coordinate of the module
+     * @return the color of the module as an 0xFFRRGGBB value
+     */
+    public int getRGB(int x, int y) {
+        if(x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IllegalArgumentException("Module is outside the color grid.");
+        }
+        return 0xFF000000 | colors[y * width + x];
+    }
+
+    /**
+     * @return the family of the selected gradient
+     */
+    public GradientFamily getGradientFamily() {
+        return gradientFamily;
+    }
+
+    /**
+     * @return the selected symmetry pattern
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return the number of generations of the Game of Life simulated
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * @return true if the simulation stopped at a repeated state, false if it reached the maximum number of generations
+     */
+    public boolean isRepeated() {
+        return repeated;
+    }
+
+    /**
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash, identical to that returned by {@link LifeHash#makeFromDigest(byte[], LifeHashVersion, int, boolean)}
+     */
+    public LifeHash.Image toImage(int moduleSize, boolean hasAlpha) {
+        return LifeHash.makeImage(width, height, colors, moduleSize, hasAlpha);
+    }
+
+    /**
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether transparency information should be included in rows of RGB or RGBA pixel data
+     * @return a lazily scaled view of the LifeHash, sharing the colors of this model
+     */
+    public ScaledImage toScaledImage(int moduleSize, boolean hasAlpha) {
+        return new ScaledImage(width, height, colors, moduleSize, hasAlpha);
+    }
+
+    /**
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param filter the filter to resample with
+     * @param hasAlpha whether transparency information should be included
+     * @return an object representing the LifeHash resampled to the given width and height
+     */
+    public LifeHash.Image toResizedImage(int width, int height, ResampleFilter filter, boolean hasAlpha) {
+        PixelFormat format = hasAlpha ? PixelFormat.RGBA : PixelFormat.RGB;
+        byte[] data = new byte[width * height * format.getBytesPerPixel()];
+        renderResized(width, height, filter, format, data, 0, width * format.getBytesPerPixel());
+        return new LifeHash.Image(width, height, data, hasAlpha);
+    }
+
+    /**
+     * @param format the pixel format to write
+     * @param moduleSizes the module size of each level
+     * @return the LifeHash rendered at each module size, with the levels packed into a single array
+     */
+    public LifeHashMipChain toMipChain(PixelFormat format, int... moduleSizes) {
+        return LifeHashMipChain.render(colors, width, height, format, moduleSizes);
+    }
+
+    /**
+     * Renders the LifeHash into a byte array. Row y of the image starts at offset + y * stride.
+     *
+     * @param moduleSize the size of the LifeHash
+     * @param format the pixel format to write
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     */
+    public void render(int moduleSize, PixelFormat format, byte[] dst, int offset, int stride) {
+        PixelWriter.write(colors, width, height, moduleSize, format, dst, offset, stride);
+    }
+
+    /**
+     * Renders the LifeHash into an int array of 0xAARRGGBB pixels. Row y of the image starts at offset + y * stride.
+     *
+     * @param moduleSize the size of the LifeHash
+     * @param format PixelFormat.ARGB or PixelFormat.ARGB_PREMULTIPLIED
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of ints between the start of each row
+     */
+    public void render(int moduleSize, PixelFormat format, int[] dst, int offset, int stride) {
+        PixelWriter.write(colors, width, height, moduleSize, format, dst, offset, stride);
+    }
+
+    /**
+     * Renders the LifeHash into a heap or direct buffer, without changing its position or limit. Row y of the image starts at
+     * index offset + y * stride.
+     *
+     * @param moduleSize the size of the LifeHash
+     * @param format the pixel format to write
+     * @param dst the buffer to render into, which must hold the image below its limit
+     * @param offset the index in dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     */
+    public void render(int moduleSize, PixelFormat format, ByteBuffer dst, int offset, int stride) {
+        PixelWriter.write(colors, width, height, moduleSize, format, dst, offset, stride);
+    }
+
+    /**
+     * Renders the LifeHash into a byte array at any width and height, resampling the colors with the given filter.
+     * Row y of the image starts at offset + y * stride.
+     *
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param filter the filter to resample with
+     * @param format the pixel format to write
+     * @param dst the array to render into
+     * @param offset the offset into dst of the first pixel
+     * @param stride the number of bytes between the start of each row
+     */
+    public void renderResized(int width, int height, ResampleFilter filter, PixelFormat format, byte[] dst, int offset, int stride) {
+        if(width < 1 || height < 1) {
+            throw new IllegalArgumentException("Invalid target size.");
+        }
+
+        LifeHashGenerator.get().resample(colors, this.width, this.height, width, height, filter, format, dst, offset, stride);
+    }
+
+    int[] getColors() {
+        return colors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof LifeHashModel model)) {
+            return false;
+        }
+        return version == model.version && Arrays.equals(digest, model.digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, Arrays.hashCode(digest));
+    }
+
+    @Override
+    public String toString() {
+        return "LifeHashModel[version=" + version + ", width=" + width + ", height=" + height + ", gradientFamily=" + gradientFamily
+                + ", pattern=" + pattern + ", generations=" + generations + "]";
+    }
+}
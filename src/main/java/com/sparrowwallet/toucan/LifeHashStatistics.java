@@ -0,0 +1,23 @@
+package com.sparrowwallet.toucan;
+
+/**
+ * Timings and statistics for the creation of a single LifeHash
+ *
+ * @param version the version of LifeHash created
+ * @param generations the number of generations of the Game of Life simulated
+ * @param repeated true if the simulation stopped at a repeated state, false if it reached the maximum number of generations
+ * @param gradientFamily the family of the selected gradient
+ * @param pattern the selected symmetry pattern
+ * @param seedNanos the time taken to hash the digest into the initial cell grid
+ * @param simulationNanos the time taken to run the Game of Life
+ * @param fracGridNanos the time taken to build and normalize the grid of generation fractions
+ * @param colorGridNanos the time taken to select the gradient and pattern and fill the color grid
+ * @param imageNanos the time taken to scale the color grid into the image
+ * @param imageBytes the size of the image pixel data in bytes
+ */
+public record LifeHashStatistics(LifeHashVersion version, int generations, boolean repeated, GradientFamily gradientFamily, Pattern pattern,
+                                 long seedNanos, long simulationNanos, long fracGridNanos, long colorGridNanos, long imageNanos, int imageBytes) {
+    public long totalNanos() {
+        return seedNanos + simulationNanos + fracGridNanos + colorGridNanos + imageNanos;
+    }
+}
@@ -0,0 +1,7 @@
+package com.sparrowwallet.toucan;
+
+public enum Pattern {
+    SNOWFLAKE, // Mirror around central axes.
+    PINWHEEL, // Rotate around center.
+    FIDUCIAL // Identity.
+}
@@ -0,0 +1,60 @@
+package com.sparrowwallet.toucan;
+
+/**
+ * The pixel layouts a LifeHash can be rendered into by the renderFromDigest methods. Components are listed in memory order,
+ * one byte each, except that ARGB formats are written to int arrays as 0xAARRGGBB values.
+ * LifeHash pixels are always opaque, so the premultiplied formats contain the same values as their straight alpha equivalents.
+ */
+public enum PixelFormat {
+    RGB(3, 0, 1, 2, -1, false),
+    RGBA(4, 0, 1, 2, 3, false),
+    BGRA(4, 2, 1, 0, 3, false),
+    ARGB(4, 1, 2, 3, 0, false),
+    RGBA_PREMULTIPLIED(4, 0, 1, 2, 3, true),
+    BGRA_PREMULTIPLIED(4, 2, 1, 0, 3, true),
+    ARGB_PREMULTIPLIED(4, 1, 2, 3, 0, true);
+
+    final int bytesPerPixel;
+    final int redOffset;
+    final int greenOffset;
+    final int blueOffset;
+    final int alphaOffset;
+    final boolean premultiplied;
+
+    PixelFormat(int bytesPerPixel, int redOffset, int greenOffset, int blueOffset, int alphaOffset, boolean premultiplied) {
+        this.bytesPerPixel = bytesPerPixel;
+        this.redOffset = redOffset;
+        this.greenOffset = greenOffset;
+        this.blueOffset = blueOffset;
+        this.alphaOffset = alphaOffset;
+        this.premultiplied = premultiplied;
+    }
+
+    /**
+     * @return the number of bytes per pixel when rendered into a byte array or buffer
+     */
+    public int getBytesPerPixel() {
+        return bytesPerPixel;
+    }
+
+    /**
+     * @return whether each pixel has an alpha component
+     */
+    public boolean hasAlpha() {
+        return alphaOffset >= 0;
+    }
+
+    /**
+     * @return whether the color components are multiplied by the alpha component
+     */
+    public boolean isPremultiplied() {
+        return premultiplied;
+    }
+
+    /**
+     * @return whether pixels of this format can be rendered into an int array
+     */
+    public boolean isIntFormat() {
+        return this == ARGB || this == ARGB_PREMULTIPLIED;
+    }
+}
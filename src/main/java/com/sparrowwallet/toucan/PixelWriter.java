@@ -0,0 +1,141 @@
+package com.sparrowwallet.toucan;
+
+import com.sparrowwallet.toucan.impl.VectorSupport;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Writes a grid of packed 0xRRGGBB colors into a destination array or buffer in a given pixel format,
+ * scaling each color up to a square module. Rows of the destination start stride elements apart.
+ */
+class PixelWriter {
+    private static final int OPAQUE = 0xFF;
+    private static final int VECTOR_PIXELS = VectorSupport.isEnabled() ? VectorSupport.pixelLanes() : Integer.MAX_VALUE;
+
+    private PixelWriter() {
+    }
+
+    static void write(int[] colors, int width, int height, int moduleSize, PixelFormat format, byte[] dst, int offset, int stride) {
+        int rowLength = width * moduleSize * format.bytesPerPixel;
+        checkBounds(width, height, moduleSize, rowLength, dst.length, offset, stride);
+
+        for(int sourceY = 0; sourceY < height; sourceY++) {
+            int rowOffset = offset + sourceY * moduleSize * stride;
+            writeRow(colors, sourceY * width, width, moduleSize, format, dst, rowOffset);
+
+            // The remaining rows of the module are copies of the first
+            for(int i = 1; i < moduleSize; i++) {
+                System.arraycopy(dst, rowOffset, dst, rowOffset + i * stride, rowLength);
+            }
+        }
+    }
+
+    static void write(int[] colors, int width, int height, int moduleSize, PixelFormat format, int[] dst, int offset, int stride) {
+        if(!format.isIntFormat()) {
+            throw new IllegalArgumentException("Only ARGB formats can be written to an int array.");
+        }
+
+        int rowLength = width * moduleSize;
+        checkBounds(width, height, moduleSize, rowLength, dst.length, offset, stride);
+
+        for(int sourceY = 0; sourceY < height; sourceY++) {
+            int rowOffset = offset + sourceY * moduleSize * stride;
+            writeIntSpan(colors, sourceY * width, 0, rowLength, moduleSize, dst, rowOffset);
+
+            for(int i = 1; i < moduleSize; i++) {
+                System.arraycopy(dst, rowOffset, dst, rowOffset + i * stride, rowLength);
+            }
+        }
+    }
+
+    static void write(int[] colors, int width, int height, int moduleSize, PixelFormat format, ByteBuffer dst, int offset, int stride) {
+        if(dst.isReadOnly()) {
+            throw new IllegalArgumentException("Destination buffer is read-only.");
+        }
+
+        // Check against the limit up front, so heap and direct buffers both fail before anything is written
+        int rowLength = width * moduleSize * format.bytesPerPixel;
+        checkBounds(width, height, moduleSize, rowLength, dst.limit(), offset, stride);
+
+        if(dst.hasArray()) {
+            write(colors, width, height, moduleSize, format, dst.array(), dst.arrayOffset() + offset, stride);
+            return;
+        }
+
+        // Build each scaled row once on the heap, then bulk copy it into every row of the module
+        byte[] row = new byte[rowLength];
+        for(int sourceY = 0; sourceY < height; sourceY++) {
+            writeRow(colors, sourceY * width, width, moduleSize, format, row, 0);
+            for(int i = 0; i < moduleSize; i++) {
+                dst.put(offset + (sourceY * moduleSize + i) * stride, row);
+            }
+        }
+    }
+
+    static void writeRow(int[] colors, int sourceOffset, int width, int moduleSize, PixelFormat format, byte[] dst, int targetOffset) {
+        writeSpan(colors, sourceOffset, 0, width * moduleSize, moduleSize, format, dst, targetOffset);
+    }
+
+    // Writes the pixels from x to x + length of a scaled row, where the unscaled row starts at sourceOffset in colors
+    static void writeSpan(int[] colors, int sourceOffset, int x, int length, int moduleSize, PixelFormat format, byte[] dst, int targetOffset) {
+        int bytesPerPixel = format.bytesPerPixel;
+        int end = x + length;
+        while(x < end) {
+            int run = Math.min(moduleSize - x % moduleSize, end - x);
+            int color = colors[sourceOffset + x / moduleSize];
+            int r = (color >> 16) & 0xFF;
+            int g = (color >> 8) & 0xFF;
+            int b = color & 0xFF;
+            if(format.premultiplied) {
+                r = premultiply(r, OPAQUE);
+                g = premultiply(g, OPAQUE);
+                b = premultiply(b, OPAQUE);
+            }
+
+            int i = 0;
+            if(run >= VECTOR_PIXELS && bytesPerPixel == 4) {
+                int pixel = (r << (format.redOffset * 8)) | (g << (format.greenOffset * 8)) | (b << (format.blueOffset * 8)) | (OPAQUE << (format.alphaOffset * 8));
+                i = VectorSupport.fillPixels(dst, targetOffset, pixel, run);
+                targetOffset += i * bytesPerPixel;
+            }
+
+            for(; i < run; i++) {
+                dst[targetOffset + format.redOffset] = (byte)r;
+                dst[targetOffset + format.greenOffset] = (byte)g;
+                dst[targetOffset + format.blueOffset] = (byte)b;
+                if(format.alphaOffset >= 0) {
+                    dst[targetOffset + format.alphaOffset] = (byte)OPAQUE;
+                }
+                targetOffset += bytesPerPixel;
+            }
+            x += run;
+        }
+    }
+
+    static void writeIntSpan(int[] colors, int sourceOffset, int x, int length, int moduleSize, int[] dst, int targetOffset) {
+        int end = x + length;
+        while(x < end) {
+            int run = Math.min(moduleSize - x % moduleSize, end - x);
+            Arrays.fill(dst, targetOffset, targetOffset + run, (OPAQUE << 24) | colors[sourceOffset + x / moduleSize]);
+            targetOffset += run;
+            x += run;
+        }
+    }
+
+    private static int premultiply(int component, int alpha) {
+        return (component * alpha + 127) / 255;
+    }
+
+    static void checkBounds(int width, int height, int moduleSize, int rowLength, int length, int offset, int stride) {
+        if(moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+        if(stride < rowLength) {
+            throw new IllegalArgumentException("Row stride is smaller than the row length.");
+        }
+        if(offset < 0 || offset + (long)(height * moduleSize - 1) * stride + rowLength > length) {
+            throw new IllegalArgumentException("Destination is too small for the image.");
+        }
+    }
+}
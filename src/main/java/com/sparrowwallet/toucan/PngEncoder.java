@@ -0,0 +1,323 @@
+package com.sparrowwallet.toucan;
+
+import com.sparrowwallet.toucan.impl.ColorGrid;
+import com.sparrowwallet.toucan.impl.Size;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes LifeHashes as 8 bit RGB or RGBA PNG images without using AWT. Scanlines are scaled up to the module size and
+ * compressed one at a time, so only a few rows of the scaled image are held in memory however large it is.
+ * An encoder holds no state between images and can be shared between threads.
+ */
+public final class PngEncoder {
+    private static final byte[] SIGNATURE = { (byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final int IHDR = 0x49484452;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+    private static final int IDAT_LENGTH = 32 * 1024;
+
+    private final int level;
+    private final Filter filter;
+
+    /**
+     * Creates an encoder using the default deflate level and adaptive filtering
+     */
+    public PngEncoder() {
+        this(Deflater.DEFAULT_COMPRESSION, Filter.ADAPTIVE);
+    }
+
+    /**
+     * @param level the deflate level, from 0 to 9, or Deflater.DEFAULT_COMPRESSION
+     * @param filter the filter to apply to each scanline
+     */
+    public PngEncoder(int level, Filter filter) {
+        if((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid deflate level.");
+        }
+
+        this.level = level;
+        this.filter = filter;
+    }
+
+    /**
+     * Encodes the LifeHash of the provided SHA256 hash, streaming it from the unscaled color grid
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether to encode an RGBA rather than an RGB image
+     * @param out the stream to write to, which is not closed
+     * @return the number of bytes written
+     * @throws IOException if the stream could not be written to
+     */
+    public long encode(byte[] digest, LifeHashVersion version, int moduleSize, boolean hasAlpha, OutputStream out) throws IOException {
+        return encode(LifeHashGenerator.get(), digest, version, moduleSize, hasAlpha, out);
+    }
+
+    long encode(LifeHashGenerator generator, byte[] digest, LifeHashVersion version, int moduleSize, boolean hasAlpha, OutputStream out) throws IOException {
+        if(moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+
+        LifeHashListener listener = generator.getListener();
+        ColorGrid colorGrid = generator.drawColorGrid(digest, version, listener);
+
+        long start = LifeHashGenerator.time(listener);
+        Size size = colorGrid.getSize();
+        int[] colors = colorGrid.getColors();
+        PixelFormat format = hasAlpha ? PixelFormat.RGBA : PixelFormat.RGB;
+        long written = encode(size.width(), size.height(), moduleSize, format.getBytesPerPixel(), out,
+                (y, row) -> PixelWriter.writeRow(colors, y * size.width(), size.width(), moduleSize, format, row, 0));
+        generator.report(listener, version, start, (int)Math.min(written, Integer.MAX_VALUE));
+
+        return written;
+    }
+
+    /**
+     * Encodes the LifeHash of the provided SHA256 hash, streaming it from the unscaled color grid
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether to encode an RGBA rather than an RGB image
+     * @param channel the channel to write to, which is not closed
+     * @return the number of bytes written
+     * @throws IOException if the channel could not be written to
+     */
+    public long encode(byte[] digest, LifeHashVersion version, int moduleSize, boolean hasAlpha, WritableByteChannel channel) throws IOException {
+        return encode(digest, version, moduleSize, hasAlpha, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Encodes a LifeHash model, streaming it from the unscaled colors
+     *
+     * @param model the LifeHashModel to encode
+     * @param moduleSize the size of the LifeHash
+     * @param hasAlpha whether to encode an RGBA rather than an RGB image
+     * @param out the stream to write to, which is not closed
+     * @return the number of bytes written
+     * @throws IOException if the stream could not be written to
+     */
+    public long encode(LifeHashModel model, int moduleSize, boolean hasAlpha, OutputStream out) throws IOException {
+        if(moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+
+        int[] colors = model.getColors();
+        int width = model.width();
+        PixelFormat format = hasAlpha ? PixelFormat.RGBA : PixelFormat.RGB;
+        return encode(width, model.height(), moduleSize, format.getBytesPerPixel(), out,
+                (y, row) -> PixelWriter.writeRow(colors, y * width, width, moduleSize, format, row, 0));
+    }
+
+    /**
+     * Encodes a LifeHash image, scaling each pixel up to a square module
+     *
+     * @param image the LifeHash.Image to encode, as RGBA if it has alpha and RGB otherwise
+     * @param moduleSize the width and height in the encoded image of each pixel in the LifeHash image
+     * @param out the stream to write to, which is not closed
+     * @return the number of bytes written
+     * @throws IOException if the stream could not be written to
+     */
+    public long encode(LifeHash.Image image, int moduleSize, OutputStream out) throws IOException {
+        if(moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+
+        byte[] data = image.getData();
+        int components = image.getComponents();
+        int width = image.width();
+        return encode(width, image.height(), moduleSize, components, out, (y, row) -> {
+            int targetOffset = 0;
+            for(int sourceOffset = y * width * components, end = sourceOffset + width * components; sourceOffset < end; sourceOffset += components) {
+                for(int i = 0; i < moduleSize; i++, targetOffset += components) {
+                    System.arraycopy(data, sourceOffset, row, targetOffset, components);
+                }
+            }
+        });
+    }
+
+    /**
+     * Encodes a LifeHash image, scaling each pixel up to a square module
+     *
+     * @param image the LifeHash.Image to encode, as RGBA if it has alpha and RGB otherwise
+     * @param moduleSize the width and height in the encoded image of each pixel in the LifeHash image
+     * @param channel the channel to write to, which is not closed
+     * @return the number of bytes written
+     * @throws IOException if the channel could not be written to
+     */
+    public long encode(LifeHash.Image image, int moduleSize, WritableByteChannel channel) throws IOException {
+        return encode(image, moduleSize, Channels.newOutputStream(channel));
+    }
+
+    private long encode(int width, int height, int moduleSize, int bytesPerPixel, OutputStream out, RowSource source) throws IOException {
+        int scaledWidth = width * moduleSize;
+        int scaledHeight = height * moduleSize;
+        int rowLength = scaledWidth * bytesPerPixel;
+
+        ChunkWriter writer = new ChunkWriter(out);
+        writer.writeSignature();
+
+        byte[] header = new byte[13];
+        putInt(header, 0, scaledWidth);
+        putInt(header, 4, scaledHeight);
+        header[8] = 8;                              // Bit depth
+        header[9] = (byte)(bytesPerPixel == 4 ? 6 : 2);   // Truecolor, with or without alpha
+        writer.writeChunk(IHDR, header, header.length);
+
+        byte[] row = new byte[rowLength];
+        byte[] previous = new byte[rowLength];
+        byte[] filtered = new byte[rowLength + 1];
+        byte[] buffer = new byte[IDAT_LENGTH];
+        int position = 0;
+
+        Deflater deflater = new Deflater(level);
+        try {
+            for(int sourceY = 0; sourceY < height; sourceY++) {
+                byte[] swap = previous;
+                previous = row;
+                row = swap;
+                source.getRow(sourceY, row);
+
+                for(int i = 0; i < moduleSize; i++) {
+                    // Every row of a module after the first follows an identical row, so filters to the same bytes as the second
+                    if(i < 2) {
+                        filterRow(row, i == 0 ? previous : row, bytesPerPixel, filtered);
+                    }
+
+                    deflater.setInput(filtered);
+                    while(!deflater.needsInput()) {
+                        position += deflater.deflate(buffer, position, buffer.length - position);
+                        if(position == buffer.length) {
+                            writer.writeChunk(IDAT, buffer, position);
+                            position = 0;
+                        }
+                    }
+                }
+            }
+
+            deflater.finish();
+            while(!deflater.finished()) {
+                position += deflater.deflate(buffer, position, buffer.length - position);
+                if(position == buffer.length) {
+                    writer.writeChunk(IDAT, buffer, position);
+                    position = 0;
+                }
+            }
+            if(position > 0) {
+                writer.writeChunk(IDAT, buffer, position);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        writer.writeChunk(IEND, buffer, 0);
+        out.flush();
+
+        return writer.count;
+    }
+
+    private void filterRow(byte[] row, byte[] previous, int bytesPerPixel, byte[] filtered) {
+        Filter rowFilter = filter;
+        if(rowFilter == Filter.ADAPTIVE) {
+            // Choose the filter with the smallest sum of absolute differences, as recommended by the PNG specification
+            long best = Long.MAX_VALUE;
+            for(Filter candidate : Filter.SCANLINE_FILTERS) {
+                long sum = 0;
+                for(int i = 0; i < row.length && sum < best; i++) {
+                    sum += Math.abs((byte)filterByte(candidate, row, previous, i, bytesPerPixel));
+                }
+                if(sum < best) {
+                    best = sum;
+                    rowFilter = candidate;
+                }
+            }
+        }
+
+        filtered[0] = (byte)rowFilter.ordinal();
+        for(int i = 0; i < row.length; i++) {
+            filtered[i + 1] = (byte)filterByte(rowFilter, row, previous, i, bytesPerPixel);
+        }
+    }
+
+    private static int filterByte(Filter filter, byte[] row, byte[] previous, int i, int bytesPerPixel) {
+        int x = row[i] & 0xFF;
+        int a = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+        int b = previous[i] & 0xFF;
+        int c = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+        return switch(filter) {
+            case NONE -> x;
+            case SUB -> x - a;
+            case UP -> x - b;
+            case AVERAGE -> x - ((a + b) >>> 1);
+            case PAETH -> x - paeth(a, b, c);
+            case ADAPTIVE -> throw new IllegalArgumentException("Adaptive is not a scanline filter.");
+        };
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if(pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private static void putInt(byte[] dst, int offset, int value) {
+        dst[offset] = (byte)(value >>> 24);
+        dst[offset + 1] = (byte)(value >>> 16);
+        dst[offset + 2] = (byte)(value >>> 8);
+        dst[offset + 3] = (byte)value;
+    }
+
+    /**
+     * The PNG filter applied to each scanline before compression. ADAPTIVE chooses a filter for each scanline.
+     */
+    public enum Filter {
+        NONE, SUB, UP, AVERAGE, PAETH, ADAPTIVE;
+
+        private static final Filter[] SCANLINE_FILTERS = { NONE, SUB, UP, AVERAGE, PAETH };
+    }
+
+    private interface RowSource {
+        void getRow(int y, byte[] row);
+    }
+
+    private static class ChunkWriter {
+        private final OutputStream out;
+        private final CRC32 crc = new CRC32();
+        private final byte[] scratch = new byte[8];
+        private long count;
+
+        ChunkWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeSignature() throws IOException {
+            out.write(SIGNATURE);
+            count += SIGNATURE.length;
+        }
+
+        void writeChunk(int type, byte[] data, int length) throws IOException {
+            putInt(scratch, 0, length);
+            putInt(scratch, 4, type);
+            crc.reset();
+            crc.update(scratch, 4, 4);
+            crc.update(data, 0, length);
+            out.write(scratch, 0, 8);
+            out.write(data, 0, length);
+            putInt(scratch, 0, (int)crc.getValue());
+            out.write(scratch, 0, 4);
+            count += 12 + length;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.sparrowwallet.toucan;
+
+/**
+ * The filters available when resampling a LifeHash to an arbitrary width and height.
+ */
+public enum ResampleFilter {
+    /**
+     * Each pixel takes the color of the module at its center, keeping hard edges between modules
+     */
+    NEAREST,
+    /**
+     * Each pixel is the average of the modules it covers, weighted by area. Suited to thumbnails smaller than the color grid.
+     */
+    BOX,
+    /**
+     * Each pixel is interpolated between the centers of the four nearest modules, giving smooth edges when enlarging
+     */
+    BILINEAR
+}
@@ -0,0 +1,167 @@
+package com.sparrowwallet.toucan;
+
+/**
+ * Resamples a grid of packed 0xRRGGBB colors to an arbitrary width and height using fixed-point arithmetic.
+ * The taps and weights for each destination column and row are computed once when the resampler is created,
+ * and each image is then resampled in two separable passes: horizontally into an intermediate buffer holding
+ * 8.8 fixed-point components, then vertically into the destination.
+ * A resampler keeps its buffers between images and must only be used by one thread at a time.
+ */
+class Resampler {
+    private static final int WEIGHT_BITS = 14;
+    private static final int ONE = 1 << WEIGHT_BITS;
+    private static final int INTERMEDIATE_SHIFT = 6;
+    private static final int OUTPUT_SHIFT = 2 * WEIGHT_BITS - INTERMEDIATE_SHIFT;
+
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final int width;
+    private final int height;
+    private final ResampleFilter filter;
+    private final Weights columns;
+    private final Weights rows;
+    private final int[] intermediate;
+    private final int[] row;
+
+    Resampler(int sourceWidth, int sourceHeight, int width, int height, ResampleFilter filter) {
+        if(width < 1 || height < 1) {
+            throw new IllegalArgumentException("Invalid target size.");
+        }
+        if((long)sourceHeight * width * 3 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Target size is too large.");
+        }
+
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.width = width;
+        this.height = height;
+        this.filter = filter;
+        this.columns = new Weights(sourceWidth, width, filter);
+        this.rows = new Weights(sourceHeight, height, filter);
+        this.intermediate = new int[sourceHeight * width * 3];
+        this.row = new int[width];
+    }
+
+    boolean matches(int sourceWidth, int sourceHeight, int width, int height, ResampleFilter filter) {
+        return this.sourceWidth == sourceWidth && this.sourceHeight == sourceHeight && this.width == width && this.height == height && this.filter == filter;
+    }
+
+    void resample(int[] colors, PixelFormat format, byte[] dst, int offset, int stride) {
+        PixelWriter.checkBounds(width, height, 1, width * format.getBytesPerPixel(), dst.length, offset, stride);
+        resampleColumns(colors);
+        for(int y = 0; y < height; y++) {
+            resampleRow(y);
+            PixelWriter.writeRow(row, 0, width, 1, format, dst, offset + y * stride);
+        }
+    }
+
+    // Resamples each source row horizontally into the intermediate buffer
+    private void resampleColumns(int[] colors) {
+        int target = 0;
+        for(int sourceY = 0; sourceY < sourceHeight; sourceY++) {
+            int rowOffset = sourceY * sourceWidth;
+            for(int x = 0; x < width; x++) {
+                int r = 0, g = 0, b = 0;
+                for(int tap = columns.first[x]; tap < columns.first[x + 1]; tap++) {
+                    int color = colors[rowOffset + columns.index[tap]];
+                    int weight = columns.weight[tap];
+                    r += ((color >> 16) & 0xFF) * weight;
+                    g += ((color >> 8) & 0xFF) * weight;
+                    b += (color & 0xFF) * weight;
+                }
+                intermediate[target++] = round(r, INTERMEDIATE_SHIFT);
+                intermediate[target++] = round(g, INTERMEDIATE_SHIFT);
+                intermediate[target++] = round(b, INTERMEDIATE_SHIFT);
+            }
+        }
+    }
+
+    // Combines the intermediate rows for destination row y into packed colors
+    private void resampleRow(int y) {
+        for(int x = 0, component = 0; x < width; x++, component += 3) {
+            int r = 0, g = 0, b = 0;
+            for(int tap = rows.first[y]; tap < rows.first[y + 1]; tap++) {
+                int source = rows.index[tap] * width * 3 + component;
+                int weight = rows.weight[tap];
+                r += intermediate[source] * weight;
+                g += intermediate[source + 1] * weight;
+                b += intermediate[source + 2] * weight;
+            }
+            row[x] = (round(r, OUTPUT_SHIFT) << 16) | (round(g, OUTPUT_SHIFT) << 8) | round(b, OUTPUT_SHIFT);
+        }
+    }
+
+    private static int round(int value, int shift) {
+        return (value + (1 << (shift - 1))) >> shift;
+    }
+
+    /**
+     * The source indices and weights contributing to each destination pixel along one axis. The taps for
+     * destination pixel i are stored from first[i] to first[i + 1], and their weights always sum to ONE.
+     */
+    private static class Weights {
+        private final int[] first;
+        private final int[] index;
+        private final int[] weight;
+
+        Weights(int sourceLength, int length, ResampleFilter filter) {
+            int maxTaps = switch(filter) {
+                case NEAREST -> 1;
+                case BILINEAR -> 2;
+                case BOX -> sourceLength / length + 2;
+            };
+
+            first = new int[length + 1];
+            int[] index = new int[length * maxTaps];
+            int[] weight = new int[length * maxTaps];
+            int taps = 0;
+
+            for(int i = 0; i < length; i++) {
+                first[i] = taps;
+                switch(filter) {
+                    case NEAREST -> {
+                        // The source pixel containing the center of the destination pixel
+                        index[taps] = (int)(((2L * i + 1) * sourceLength) / (2L * length));
+                        weight[taps++] = ONE;
+                    }
+                    case BILINEAR -> {
+                        // The position of the destination pixel center in source pixel centers, clamped to the edges
+                        long position = Math.max(0L, (((2L * i + 1) * sourceLength - length) << WEIGHT_BITS) / (2L * length));
+                        int left = (int)Math.min(position >> WEIGHT_BITS, sourceLength - 1);
+                        int fraction = left == sourceLength - 1 ? 0 : (int)(position & (ONE - 1));
+                        index[taps] = left;
+                        weight[taps++] = ONE - fraction;
+                        if(fraction != 0) {
+                            index[taps] = left + 1;
+                            weight[taps++] = fraction;
+                        }
+                    }
+                    case BOX -> {
+                        // In units of 1 / (sourceLength * length), destination pixel i covers [i * sourceLength, (i + 1) * sourceLength)
+                        // and source pixel j covers [j * length, (j + 1) * length)
+                        long start = (long)i * sourceLength;
+                        long end = start + sourceLength;
+                        int largest = taps;
+                        int total = 0;
+                        for(int j = (int)(start / length); j < sourceLength && (long)j * length < end; j++) {
+                            long overlap = Math.min(end, (long)(j + 1) * length) - Math.max(start, (long)j * length);
+                            index[taps] = j;
+                            weight[taps] = (int)((overlap * ONE + sourceLength / 2) / sourceLength);
+                            total += weight[taps];
+                            if(weight[taps] > weight[largest]) {
+                                largest = taps;
+                            }
+                            taps++;
+                        }
+                        // Give any rounding error to the largest weight so the weights sum to exactly ONE
+                        weight[largest] += ONE - total;
+                    }
+                }
+            }
+            first[length] = taps;
+
+            this.index = index;
+            this.weight = weight;
+        }
+    }
+}
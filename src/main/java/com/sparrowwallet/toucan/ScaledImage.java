@@ -0,0 +1,213 @@
+package com.sparrowwallet.toucan;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A LifeHash image scaled up by a module size, which holds only the unscaled colors and resolves scaled pixels on demand.
+ * Memory use is proportional to the unscaled image at any module size, so very large images can be read in rows or tiles
+ * without ever being held in memory at full size. Pixels are always opaque.
+ */
+public final class ScaledImage {
+    private final int baseWidth;
+    private final int baseHeight;
+    private final int[] colors;
+    private final int moduleSize;
+    private final boolean hasAlpha;
+
+    ScaledImage(int baseWidth, int baseHeight, int[] colors, int moduleSize, boolean hasAlpha) {
+        if(moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+        if((long)baseWidth * moduleSize > Integer.MAX_VALUE || (long)baseHeight * moduleSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Module size is too large.");
+        }
+
+        this.baseWidth = baseWidth;
+        this.baseHeight = baseHeight;
+        this.colors = colors;
+        this.moduleSize = moduleSize;
+        this.hasAlpha = hasAlpha;
+    }
+
+    /**
+     * @return the width in pixels of the scaled image
+     */
+    public int width() {
+        return baseWidth * moduleSize;
+    }
+
+    /**
+     * @return the height in pixels of the scaled image
+     */
+    public int height() {
+        return baseHeight * moduleSize;
+    }
+
+    /**
+     * @return the width and height in pixels of each module
+     */
+    public int getModuleSize() {
+        return moduleSize;
+    }
+
+    public boolean hasAlpha() {
+        return hasAlpha;
+    }
+
+    /**
+     * @return the number of bytes per pixel returned by {@link #getRow(int, byte[], int)}, 4 if the image has alpha and 3 otherwise
+     */
+    public int getComponents() {
+        return hasAlpha ? 4 : 3;
+    }
+
+    /**
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @return the pixel as an 0xAARRGGBB value, as returned by BufferedImage.getRGB
+     */
+    public int getRGB(int x, int y) {
+        checkRegion(x, y, 1, 1);
+        return 0xFF000000 | colors[(y / moduleSize) * baseWidth + x / moduleSize];
+    }
+
+    /**
+     * Copies a row of RGB or RGBA pixel data into the provided array, in the same layout as {@link LifeHash.Image#getRow(int, byte[], int)}
+     *
+     * @param y the row to copy
+     * @param dst the array to copy into, which must have space for width() * getComponents() bytes
+     * @param dstOffset the offset into dst
+     */
+    public void getRow(int y, byte[] dst, int dstOffset) {
+        getRow(y, hasAlpha ? PixelFormat.RGBA : PixelFormat.RGB, dst, dstOffset);
+    }
+
+    /**
+     * Copies a row of pixels into the provided array
+     *
+     * @param y the row to copy
+     * @param format the pixel format to write
+     * @param dst the array to copy into, which must have space for width() * format.getBytesPerPixel() bytes
+     * @param dstOffset the offset into dst
+     */
+    public void getRow(int y, PixelFormat format, byte[] dst, int dstOffset) {
+        getPixels(0, y, width(), 1, format, dst, dstOffset, width() * format.getBytesPerPixel());
+    }
+
+    /**
+     * Copies a row of 0xAARRGGBB pixels into the provided array
+     *
+     * @param y the row to copy
+     * @param dst the array to copy into, which must have space for width() ints
+     * @param dstOffset the offset into dst
+     */
+    public void getRow(int y, int[] dst, int dstOffset) {
+        getPixels(0, y, width(), 1, dst, dstOffset, width());
+    }
+
+    /**
+     * Copies a rectangular region of pixels into the provided array
+     *
+     * @param x the left of the region
+     * @param y the top of the region
+     * @param width the width of the region
+     * @param height the height of the region
+     * @param format the pixel format to write
+     * @param dst the array to copy into
+     * @param offset the offset into dst of the top left pixel of the region
+     * @param stride the number of bytes between the start of each row in dst
+     */
+    public void getPixels(int x, int y, int width, int height, PixelFormat format, byte[] dst, int offset, int stride) {
+        int rowLength = width * format.getBytesPerPixel();
+        checkRegion(x, y, width, height);
+        checkDestination(dst.length, offset, stride, rowLength, height);
+
+        for(int row = 0; row < height; row++) {
+            int targetOffset = offset + row * stride;
+            // Rows within the same module are identical, so copy the row above where possible
+            if(row > 0 && (y + row) % moduleSize != 0) {
+                System.arraycopy(dst, targetOffset - stride, dst, targetOffset, rowLength);
+            } else {
+                PixelWriter.writeSpan(colors, ((y + row) / moduleSize) * baseWidth, x, width, moduleSize, format, dst, targetOffset);
+            }
+        }
+    }
+
+    /**
+     * Copies a rectangular region of 0xAARRGGBB pixels into the provided array
+     *
+     * @param x the left of the region
+     * @param y the top of the region
+     * @param width the width of the region
+     * @param height the height of the region
+     * @param dst the array to copy into
+     * @param offset the offset into dst of the top left pixel of the region
+     * @param stride the number of ints between the start of each row in dst
+     */
+    public void getPixels(int x, int y, int width, int height, int[] dst, int offset, int stride) {
+        checkRegion(x, y, width, height);
+        checkDestination(dst.length, offset, stride, width, height);
+
+        for(int row = 0; row < height; row++) {
+            int targetOffset = offset + row * stride;
+            if(row > 0 && (y + row) % moduleSize != 0) {
+                System.arraycopy(dst, targetOffset - stride, dst, targetOffset, width);
+            } else {
+                PixelWriter.writeIntSpan(colors, ((y + row) / moduleSize) * baseWidth, x, width, moduleSize, dst, targetOffset);
+            }
+        }
+    }
+
+    /**
+     * @return the full scaled image, allocating width() * height() * getComponents() bytes
+     */
+    public LifeHash.Image toImage() {
+        return LifeHash.makeImage(baseWidth, baseHeight, colors, moduleSize, hasAlpha);
+    }
+
+    /**
+     * @param moduleSize the new module size
+     * @return a view of the same LifeHash at a different module size, sharing the unscaled colors
+     */
+    public ScaledImage withModuleSize(int moduleSize) {
+        return new ScaledImage(baseWidth, baseHeight, colors, moduleSize, hasAlpha);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof ScaledImage image)) {
+            return false;
+        }
+        return baseWidth == image.baseWidth && baseHeight == image.baseHeight && moduleSize == image.moduleSize && hasAlpha == image.hasAlpha
+                && Arrays.equals(colors, image.colors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(baseWidth, baseHeight, moduleSize, hasAlpha, Arrays.hashCode(colors));
+    }
+
+    @Override
+    public String toString() {
+        return "ScaledImage[width=" + width() + ", height=" + height() + ", moduleSize=" + moduleSize + ", hasAlpha=" + hasAlpha + "]";
+    }
+
+    private void checkRegion(int x, int y, int width, int height) {
+        if(x < 0 || y < 0 || width < 0 || height < 0 || (long)x + width > width() || (long)y + height > height()) {
+            throw new IllegalArgumentException("Region is outside the image.");
+        }
+    }
+
+    private static void checkDestination(int length, int offset, int stride, int rowLength, int height) {
+        if(stride < rowLength) {
+            throw new IllegalArgumentException("Row stride is smaller than the row length.");
+        }
+        if(height > 0 && (offset < 0 || offset + (long)(height - 1) * stride + rowLength > length)) {
+            throw new IllegalArgumentException("Destination is too small for the region.");
+        }
+    }
+}
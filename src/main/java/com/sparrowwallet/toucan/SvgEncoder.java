@@ -0,0 +1,152 @@
+package com.sparrowwallet.toucan;
+
+import com.sparrowwallet.toucan.impl.ColorGrid;
+import com.sparrowwallet.toucan.impl.Size;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes LifeHashes as SVG images drawn from the unscaled color grid, so the size of the output depends only on the
+ * complexity of the LifeHash and not on the size it is displayed at. The most common color is drawn as a background,
+ * and the remaining modules are merged into rectangles of equal color, which share their fill through a style table.
+ */
+public final class SvgEncoder {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private SvgEncoder() {
+    }
+
+    /**
+     * Encodes the LifeHash of the provided SHA256 hash as an SVG document
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of each module used for the width and height of the SVG element
+     * @return the SVG document
+     */
+    public static String encode(byte[] digest, LifeHashVersion version, int moduleSize) {
+        if(moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+
+        LifeHashGenerator generator = LifeHashGenerator.get();
+        LifeHashListener listener = generator.getListener();
+        ColorGrid colorGrid = generator.drawColorGrid(digest, version, listener);
+
+        long start = LifeHashGenerator.time(listener);
+        Size size = colorGrid.getSize();
+        String svg = encode(colorGrid.getColors(), size.width(), size.height(), moduleSize);
+        generator.report(listener, version, start, svg.length());
+
+        return svg;
+    }
+
+    /**
+     * Encodes the LifeHash of the provided SHA256 hash as an SVG document
+     *
+     * @param digest a 32 byte array representing a SHA256 hash to use as input
+     * @param version the version of LifeHash to use
+     * @param moduleSize the size of each module used for the width and height of the SVG element
+     * @param out the destination to append the SVG document to
+     * @throws IOException if the document could not be appended
+     */
+    public static void encode(byte[] digest, LifeHashVersion version, int moduleSize, Appendable out) throws IOException {
+        out.append(encode(digest, version, moduleSize));
+    }
+
+    /**
+     * Encodes a LifeHash model as an SVG document
+     *
+     * @param model the LifeHashModel to encode
+     * @param moduleSize the size of each module used for the width and height of the SVG element
+     * @return the SVG document
+     */
+    public static String encode(LifeHashModel model, int moduleSize) {
+        if(moduleSize < 1) {
+            throw new IllegalArgumentException("Invalid module size.");
+        }
+
+        return encode(model.getColors(), model.width(), model.height(), moduleSize);
+    }
+
+    static String encode(int[] colors, int width, int height, int moduleSize) {
+        // Assign style classes to colors in descending order of frequency, so the most common color is the background
+        Map<Integer, Integer> counts = new HashMap<>();
+        for(int color : colors) {
+            counts.merge(color, 1, Integer::sum);
+        }
+        List<Integer> palette = new ArrayList<>(counts.keySet());
+        palette.sort(Comparator.comparing((Integer color) -> -counts.get(color)).thenComparing(color -> color));
+        Map<Integer, Integer> classes = new HashMap<>();
+        for(int i = 0; i < palette.size(); i++) {
+            classes.put(palette.get(i), i);
+        }
+
+        StringBuilder svg = new StringBuilder(256 + colors.length * 8);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                .append("\" width=\"").append(width * moduleSize).append("\" height=\"").append(height * moduleSize)
+                .append("\" shape-rendering=\"crispEdges\">\n<style>");
+        for(int i = 0; i < palette.size(); i++) {
+            svg.append(".c").append(i).append("{fill:#");
+            appendHex(svg, palette.get(i));
+            svg.append('}');
+        }
+        svg.append("</style>\n");
+
+        int background = palette.get(0);
+        svg.append("<rect class=\"c0\" width=\"").append(width).append("\" height=\"").append(height).append("\"/>\n");
+
+        // Greedily grow each uncovered module right along its row, then down while the whole run below matches
+        boolean[] covered = new boolean[colors.length];
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                int index = y * width + x;
+                int color = colors[index];
+                if(covered[index] || color == background) {
+                    continue;
+                }
+
+                int runWidth = 1;
+                while(x + runWidth < width && colors[index + runWidth] == color && !covered[index + runWidth]) {
+                    runWidth++;
+                }
+
+                int runHeight = 1;
+                while(y + runHeight < height && matches(colors, covered, (y + runHeight) * width + x, runWidth, color)) {
+                    runHeight++;
+                }
+
+                for(int row = 0; row < runHeight; row++) {
+                    Arrays.fill(covered, (y + row) * width + x, (y + row) * width + x + runWidth, true);
+                }
+
+                svg.append("<rect class=\"c").append(classes.get(color)).append("\" x=\"").append(x).append("\" y=\"").append(y)
+                        .append("\" width=\"").append(runWidth).append("\" height=\"").append(runHeight).append("\"/>\n");
+            }
+        }
+
+        svg.append("</svg>\n");
+        return svg.toString();
+    }
+
+    private static boolean matches(int[] colors, boolean[] covered, int start, int length, int color) {
+        for(int i = start; i < start + length; i++) {
+            if(colors[i] != color || covered[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void appendHex(StringBuilder sb, int color) {
+        for(int shift = 20; shift >= 0; shift -= 4) {
+            sb.append(HEX[(color >> shift) & 0xF]);
+        }
+    }
+}
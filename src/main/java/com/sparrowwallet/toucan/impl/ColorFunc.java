@@ -11,6 +11,11 @@ public abstract class ColorFunc {
             Color apply(double value) {
                 return c.apply(1 - value);
             }
+
+            @Override
+            GradientTable createTable() {
+                return c.compile().reverse();
+            }
         };
     }
 
@@ -20,6 +25,11 @@ public abstract class ColorFunc {
             Color apply(double value) {
                 return color1.lerpTo(color2, value);
             }
+
+            @Override
+            GradientTable createTable() {
+                return new GradientTable(List.of(color1, color2), false);
+            }
         };
     }
 
@@ -50,9 +60,39 @@ public abstract class ColorFunc {
                             return c1.lerpTo(c2, segmentFrac);
                         }
                     }
+
+                    @Override
+                    GradientTable createTable() {
+                        return new GradientTable(colors, true);
+                    }
                 };
         }
     }
 
+    // Tables are immutable, so a table compiled by another thread can be safely reused without synchronization
+    private GradientTable table;
+
     abstract Color apply(double value);
+
+    /**
+     * Compiles this function into a table of color stops, so that it can be evaluated without a chain of calls.
+     * The table is created once and reused by later calls.
+     *
+     * @return the compiled gradient
+     */
+    public final GradientTable compile() {
+        GradientTable table = this.table;
+        if(table == null) {
+            table = createTable();
+            this.table = table;
+        }
+        return table;
+    }
+
+    /**
+     * @return a new table evaluating this function, which for functions other than blends of colors calls {@link #apply(double)}
+     */
+    GradientTable createTable() {
+        return new GradientTable(this);
+    }
 }
@@ -1,10 +1,14 @@
 package com.sparrowwallet.toucan.impl;
 
+import com.sparrowwallet.toucan.Pattern;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class ColorGrid extends Grid<Color> {
+public class ColorGrid {
     static List<Transform> snowflakeTransforms = List.of(
             new Transform(false, false, false),
             new Transform(false, true, false),
@@ -29,34 +33,87 @@ public class ColorGrid extends Grid<Color> {
             Pattern.FIDUCIAL, fiducialTransforms
     );
 
+    // For each source grid size and pattern, the target index of each source cell under each transform
+    private static final Map<TargetKey, int[]> targetsMap = new ConcurrentHashMap<>();
+
+    public final Size size;
+
+    // Colors packed as 0xRRGGBB, in rows
+    private final int[] colors;
+    private int[] palette;
+
     public ColorGrid(FracGrid fracGrid, ColorFunc gradient, Pattern pattern) {
-        super(targetSize(fracGrid.getSize(), pattern));
+        this(targetSize(fracGrid.getSize(), pattern));
+        draw(fracGrid, gradient, pattern);
+    }
 
-        List<Transform> transforms = transformsMap.getOrDefault(pattern, new ArrayList<>());
+    public ColorGrid(Size size) {
+        this.size = size;
+        this.colors = new int[size.width() * size.height()];
+        this.palette = new int[0];
+    }
 
-        for(Point point : fracGrid.getPoints()) {
-            double value = fracGrid.getValue(point);
-            Color someColor = gradient.apply(value);
-            draw(point, someColor, transforms);
+    public void draw(FracGrid fracGrid, ColorFunc gradient, Pattern pattern) {
+        if(!size.equals(targetSize(fracGrid.getSize(), pattern))) {
+            throw new IllegalArgumentException("Invalid color grid size for pattern.");
+        }
+
+        Arrays.fill(colors, 0);
+
+        // Evaluate the gradient once for each level in the frac grid, rather than once for each cell
+        if(palette.length < fracGrid.getLevelCount()) {
+            palette = new int[fracGrid.getLevelCount()];
+        }
+        gradient.compile().apply(fracGrid.getLevelValues(), fracGrid.getLevelCount(), palette);
+
+        int[] levels = fracGrid.getLevels();
+        int[] targets = targetsMap.computeIfAbsent(new TargetKey(fracGrid.getSize(), pattern), key -> makeTargets(key.size(), key.pattern()));
+        int transformCount = targets.length / levels.length;
+        for(int i = 0, j = 0; i < levels.length; i++) {
+            int color = palette[levels[i]];
+            for(int t = 0; t < transformCount; t++) {
+                colors[targets[j++]] = color;
+            }
         }
     }
 
-    @Override
-    protected Color colorForValue(Color color) {
-        return color;
+    /**
+     * @return the colors of the grid packed as 0xRRGGBB, in rows
+     */
+    public int[] getColors() {
+        return colors;
     }
 
-    @Override
-    protected Color getDefault() {
-        return Colors.BLACK;
+    public Size getSize() {
+        return size;
     }
 
-    private static Size targetSize(Size inSize, Pattern pattern) {
+    public static Size targetSize(Size inSize, Pattern pattern) {
         int multiplier = (pattern == Pattern.FIDUCIAL) ? 1 : 2;
         return new Size(inSize.width() * multiplier, inSize.height() * multiplier);
     }
 
-    private Point transformPoint(Point point, Transform transform) {
+    private static int[] makeTargets(Size sourceSize, Pattern pattern) {
+        Size targetSize = targetSize(sourceSize, pattern);
+        int maxX = targetSize.width() - 1;
+        int maxY = targetSize.height() - 1;
+        List<Transform> transforms = transformsMap.getOrDefault(pattern, new ArrayList<>());
+
+        int[] targets = new int[sourceSize.width() * sourceSize.height() * transforms.size()];
+        int j = 0;
+        for(int y = 0; y < sourceSize.height(); y++) {
+            for(int x = 0; x < sourceSize.width(); x++) {
+                for(Transform t : transforms) {
+                    Point p = transformPoint(new Point(x, y), t, maxX, maxY);
+                    targets[j++] = p.y() * targetSize.width() + p.x();
+                }
+            }
+        }
+
+        return targets;
+    }
+
+    static Point transformPoint(Point point, Transform transform, int maxX, int maxY) {
         int x = point.x();
         int y = point.y();
         if (transform.transpose) {
@@ -73,13 +130,9 @@ public class ColorGrid extends Grid<Color> {
         return new Point(x, y);
     }
 
-    private void draw(Point p, Color color, List<Transform> transforms) {
-        for (Transform t : transforms) {
-            Point p2 = transformPoint(p, t);
-            setValue(color, p2);
-        }
+    static record Transform(boolean transpose, boolean reflectX, boolean reflectY) {
     }
 
-    static record Transform(boolean transpose, boolean reflectX, boolean reflectY) {
+    private record TargetKey(Size size, Pattern pattern) {
     }
 }
@@ -1,25 +1,72 @@
 package com.sparrowwallet.toucan.impl;
 
-public class FracGrid extends Grid<Double> {
+import static com.sparrowwallet.toucan.impl.Utils.clamped;
+import static com.sparrowwallet.toucan.impl.Utils.lerpFrom;
+
+public class FracGrid {
+    public final Size size;
+
+    private final int capacity;
+
+    // Each cell takes the value of its level, which is the last generation in which it was alive
+    private final int[] levels;
+    private double[] levelValues;
+    private int levelCount;
+
     public FracGrid(Size size) {
-        super(size);
+        this.size = size;
+        this.capacity = size.width() * size.height();
+        this.levels = new int[capacity];
+        this.levelValues = new double[1];
+        this.levelCount = 1;
     }
 
-    public void overlay(CellGrid cellGrid, double frac) {
-        for(Point point : getPoints()) {
-            if(cellGrid.getValue(point)) {
-                setValue(frac, point);
-            }
+    public void setGenerations(int[] lastAliveGenerations, int generations) {
+        System.arraycopy(lastAliveGenerations, 0, levels, 0, capacity);
+
+        levelCount = generations + 1;
+        if(levelValues.length < levelCount) {
+            levelValues = new double[levelCount];
         }
+
+        levelValues[0] = 0d;
+        for(int level = 1; level < levelCount; level++) {
+            levelValues[level] = clamped(lerpFrom(0, generations, level));
+        }
+    }
+
+    public void normalize() {
+        double minValue = Double.MAX_VALUE;
+        double maxValue = Double.MIN_VALUE;
+
+        for(int i = 0; i < capacity; i++) {
+            double value = levelValues[levels[i]];
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+        }
+
+        for(int level = 0; level < levelCount; level++) {
+            levelValues[level] = lerpFrom(minValue, maxValue, levelValues[level]);
+        }
+    }
+
+    public double getValue(Point point) {
+        return levelValues[levels[point.y() * size.width() + point.x()]];
+    }
+
+    public int[] getLevels() {
+        return levels;
+    }
+
+    public double[] getLevelValues() {
+        return levelValues;
     }
 
-    @Override
-    protected Color colorForValue(Double value) {
-        return Colors.BLACK.lerpTo(Colors.WHITE, value);
+    public int getLevelCount() {
+        return levelCount;
     }
 
-    @Override
-    protected Double getDefault() {
-        return 0d;
+    public Size getSize() {
+        return size;
     }
 }
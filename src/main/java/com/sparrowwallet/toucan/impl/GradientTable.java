@@ -0,0 +1,117 @@
+package com.sparrowwallet.toucan.impl;
+
+import java.util.List;
+
+import static com.sparrowwallet.toucan.impl.Utils.clamped;
+import static com.sparrowwallet.toucan.impl.Utils.modulo;
+import static com.sparrowwallet.toucan.impl.Utils.packRGB;
+
+/**
+ * A gradient compiled into a flat array of color stops, evaluated with the same arithmetic as the ColorFunc it was compiled from.
+ * Functions that are not blends of colors have no stops, and are evaluated by calling the function itself.
+ */
+public class GradientTable {
+    // The r, g and b components of each stop
+    private final double[] stops;
+    private final int count;
+    // Blends of two colors clamp the value and interpolate directly, blends of more colors interpolate within segments
+    private final boolean segmented;
+    // The number of times the value is reversed before lookup
+    private final int reversals;
+    // The function to evaluate in place of the stops, if it is not a blend of colors
+    private final ColorFunc function;
+
+    GradientTable(List<Color> colors, boolean segmented) {
+        this.count = colors.size();
+        this.stops = new double[count * 3];
+        for(int i = 0; i < count; i++) {
+            Color color = colors.get(i);
+            stops[i * 3] = color.r;
+            stops[i * 3 + 1] = color.g;
+            stops[i * 3 + 2] = color.b;
+        }
+        this.segmented = segmented;
+        this.reversals = 0;
+        this.function = null;
+    }
+
+    GradientTable(ColorFunc function) {
+        this.stops = null;
+        this.count = 0;
+        this.segmented = false;
+        this.reversals = 0;
+        this.function = function;
+    }
+
+    private GradientTable(GradientTable table, int reversals) {
+        this.stops = table.stops;
+        this.count = table.count;
+        this.segmented = table.segmented;
+        this.reversals = reversals;
+        this.function = table.function;
+    }
+
+    GradientTable reverse() {
+        return new GradientTable(this, reversals + 1);
+    }
+
+    public Color apply(double value) {
+        double[] rgb = new double[3];
+        apply(value, rgb);
+        return new Color(rgb[0], rgb[1], rgb[2]);
+    }
+
+    /**
+     * Evaluates the gradient for each of the provided values
+     *
+     * @param values the values to evaluate
+     * @param count the number of values to evaluate
+     * @param palette the array to receive the color for each value, packed as 0xRRGGBB
+     */
+    public void apply(double[] values, int count, int[] palette) {
+        double[] rgb = new double[3];
+        for(int i = 0; i < count; i++) {
+            apply(values[i], rgb);
+            palette[i] = packRGB(rgb[0], rgb[1], rgb[2]);
+        }
+    }
+
+    private void apply(double value, double[] rgb) {
+        for(int i = 0; i < reversals; i++) {
+            value = 1 - value;
+        }
+
+        if(function != null) {
+            Color color = function.apply(value);
+            rgb[0] = color.r;
+            rgb[1] = color.g;
+            rgb[2] = color.b;
+        } else if(!segmented) {
+            lerp(0, 1, value, rgb);
+        } else if(value >= 1) {
+            stop(count - 1, rgb);
+        } else if(value <= 0) {
+            stop(0, rgb);
+        } else {
+            int segments = count - 1;
+            double s = value * segments;
+            int segment = (int) s;
+            double segmentFrac = modulo(s, 1);
+            lerp(segment, segment + 1, segmentFrac, rgb);
+        }
+    }
+
+    private void stop(int index, double[] rgb) {
+        rgb[0] = stops[index * 3];
+        rgb[1] = stops[index * 3 + 1];
+        rgb[2] = stops[index * 3 + 2];
+    }
+
+    // Matches Color.lerpTo
+    private void lerp(int from, int to, double t, double[] rgb) {
+        double f = clamped(t);
+        rgb[0] = clamped(stops[from * 3] * (1 - f) + stops[to * 3] * f);
+        rgb[1] = clamped(stops[from * 3 + 1] * (1 - f) + stops[to * 3 + 1] * f);
+        rgb[2] = clamped(stops[from * 3 + 2] * (1 - f) + stops[to * 3 + 2] * f);
+    }
+}
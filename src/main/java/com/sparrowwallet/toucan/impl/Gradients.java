@@ -1,5 +1,6 @@
 package com.sparrowwallet.toucan.impl;
 
+import com.sparrowwallet.toucan.GradientFamily;
 import com.sparrowwallet.toucan.LifeHashVersion;
 
 import java.util.ArrayList;
@@ -278,38 +279,56 @@ public class Gradients {
     }
 
     public static ColorFunc selectGradient(BitEnumerator entropy, LifeHashVersion version) {
+        return makeGradient(selectGradientFamily(entropy, version), entropy, version);
+    }
+
+    public static GradientFamily selectGradientFamily(BitEnumerator entropy, LifeHashVersion version) {
         if(version == LifeHashVersion.GRAYSCALE_FIDUCIAL) {
-            return selectGrayscale(entropy);
+            return GradientFamily.GRAYSCALE;
         }
 
         int value = entropy.nextUint2();
 
         return switch(value) {
-            case 0 -> switch(version) {
+            case 0 -> GradientFamily.MONOCHROMATIC;
+            case 1 -> GradientFamily.COMPLEMENTARY;
+            case 2 -> GradientFamily.TRIADIC;
+            case 3 -> GradientFamily.ANALOGOUS;
+            default -> GradientFamily.GRAYSCALE;
+        };
+    }
+
+    public static ColorFunc makeGradient(GradientFamily family, BitEnumerator entropy, LifeHashVersion version) {
+        if(version == LifeHashVersion.GRAYSCALE_FIDUCIAL) {
+            return selectGrayscale(entropy);
+        }
+
+        return switch(family) {
+            case MONOCHROMATIC -> switch(version) {
                 case VERSION1 -> monochromatic(entropy, makeHue);
                 case VERSION2, DETAILED -> monochromatic(entropy, spectrumCmykSafe);
                 case FIDUCIAL -> monochromaticFiducial(entropy);
                 case GRAYSCALE_FIDUCIAL -> grayscale;
             };
-            case 1 -> switch(version) {
+            case COMPLEMENTARY -> switch(version) {
                 case VERSION1 -> complementary(entropy, spectrum);
                 case VERSION2, DETAILED -> complementary(entropy, spectrumCmykSafe);
                 case FIDUCIAL -> complementaryFiducial(entropy);
                 case GRAYSCALE_FIDUCIAL -> grayscale;
             };
-            case 2 -> switch(version) {
+            case TRIADIC -> switch(version) {
                 case VERSION1 -> triadic(entropy, spectrum);
                 case VERSION2, DETAILED -> triadic(entropy, spectrumCmykSafe);
                 case FIDUCIAL -> triadicFiducial(entropy);
                 case GRAYSCALE_FIDUCIAL -> grayscale;
             };
-            case 3 -> switch(version) {
+            case ANALOGOUS -> switch(version) {
                 case VERSION1 -> analogous(entropy, spectrum);
                 case VERSION2, DETAILED -> analogous(entropy, spectrumCmykSafe);
                 case FIDUCIAL -> analogousFiducial(entropy);
                 case GRAYSCALE_FIDUCIAL -> grayscale;
             };
-            default -> grayscale;
+            case GRAYSCALE -> grayscale;
         };
     }
 }
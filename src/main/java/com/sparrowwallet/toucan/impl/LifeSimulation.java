@@ -0,0 +1,77 @@
+package com.sparrowwallet.toucan.impl;
+
+import java.util.Arrays;
+
+/**
+ * Runs the Game of Life from a seed until a state repeats or the maximum number of generations is reached,
+ * recording the last generation in which each cell was alive. The grids and history are kept between runs
+ * of the same size, so a thread rendering many LifeHashes should reuse one instance.
+ */
+public class LifeSimulation {
+    private Size size;
+    private int maxGenerations;
+
+    // These get reused from generation to generation by swapping them.
+    private PackedCellGrid currentCellGrid;
+    private PackedCellGrid nextCellGrid;
+
+    private StateHistory history;
+    private long[] state;
+
+    // The last generation (counting from 1) in which each cell was alive, or 0 if it never was.
+    private int[] lastAliveGenerations;
+
+    private boolean repeated;
+
+    public void run(byte[] seed, Size size, int maxGenerations) {
+        if(!size.equals(this.size) || maxGenerations != this.maxGenerations) {
+            this.size = size;
+            this.maxGenerations = maxGenerations;
+            this.currentCellGrid = new PackedCellGrid(size);
+            this.nextCellGrid = new PackedCellGrid(size);
+            this.history = new StateHistory(currentCellGrid.getStateLength(), maxGenerations);
+            this.state = new long[currentCellGrid.getStateLength()];
+            this.lastAliveGenerations = new int[size.width() * size.height()];
+        } else {
+            history.clear();
+            Arrays.fill(lastAliveGenerations, 0);
+        }
+
+        nextCellGrid.setData(seed);
+        repeated = false;
+
+        while(history.size() < maxGenerations) {
+            PackedCellGrid tempCellGrid = currentCellGrid;
+            currentCellGrid = nextCellGrid;
+            nextCellGrid = tempCellGrid;
+
+            currentCellGrid.getState(state);
+            if(!history.add(state)) {
+                repeated = true;
+                break;
+            }
+            currentCellGrid.markAlive(lastAliveGenerations, history.size());
+
+            currentCellGrid.nextGeneration(nextCellGrid);
+        }
+    }
+
+    public Size getSize() {
+        return size;
+    }
+
+    public int getGenerations() {
+        return history.size();
+    }
+
+    /**
+     * @return true if the last run stopped because a state repeated, false if it reached the maximum number of generations
+     */
+    public boolean isRepeated() {
+        return repeated;
+    }
+
+    public int[] getLastAliveGenerations() {
+        return lastAliveGenerations;
+    }
+}
@@ -0,0 +1,143 @@
+package com.sparrowwallet.toucan.impl;
+
+import java.util.Arrays;
+
+/**
+ * A bitboard implementation of CellGrid. Each row is stored in a long, with the cell at x held in bit x,
+ * so a whole row of the Game of Life can be stepped at once using shifts and bitwise adders.
+ */
+public class PackedCellGrid {
+    public final Size size;
+
+    private final int width;
+    private final int height;
+    private final long rowMask;
+    private final long[] rows;
+
+    public PackedCellGrid(Size size) {
+        if(size.width() < 1 || size.width() > Long.SIZE || size.height() < 1) {
+            throw new IllegalArgumentException("Invalid size for packed cell grid.");
+        }
+
+        this.size = size;
+        this.width = size.width();
+        this.height = size.height();
+        this.rowMask = (width == Long.SIZE) ? -1L : (1L << width) - 1;
+        this.rows = new long[height];
+    }
+
+    public byte[] getData() {
+        byte[] data = new byte[(width * height + 7) / 8];
+        for(int y = 0; y < height; y++) {
+            long row = rows[y];
+            int i = y * width;
+            for(int x = 0; x < width; x++, i++) {
+                if((row & (1L << x)) != 0) {
+                    data[i >>> 3] |= (byte)(0x80 >>> (i & 7));
+                }
+            }
+        }
+
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        assert width * height == data.length * 8;
+
+        for(int y = 0; y < height; y++) {
+            long row = 0;
+            int i = y * width;
+            for(int x = 0; x < width; x++, i++) {
+                if((data[i >>> 3] & (0x80 >>> (i & 7))) != 0) {
+                    row |= 1L << x;
+                }
+            }
+            rows[y] = row;
+        }
+    }
+
+    public int getStateLength() {
+        return (width * height + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    public void getState(long[] state) {
+        Arrays.fill(state, 0, getStateLength(), 0L);
+        for(int y = 0; y < height; y++) {
+            int position = y * width;
+            int word = position >>> 6;
+            int shift = position & 63;
+            state[word] |= rows[y] << shift;
+            if(shift + width > Long.SIZE) {
+                state[word + 1] |= rows[y] >>> (Long.SIZE - shift);
+            }
+        }
+    }
+
+    public void markAlive(int[] lastAliveGenerations, int generation) {
+        for(int y = 0; y < height; y++) {
+            long row = rows[y];
+            int offset = y * width;
+            while(row != 0) {
+                lastAliveGenerations[offset + Long.numberOfTrailingZeros(row)] = generation;
+                row &= row - 1;
+            }
+        }
+    }
+
+    public boolean getValue(int x, int y) {
+        return (rows[y] & (1L << x)) != 0;
+    }
+
+    public long getRow(int y) {
+        return rows[y];
+    }
+
+    public void nextGeneration(PackedCellGrid nextCellGrid) {
+        long[] nextRows = nextCellGrid.rows;
+        for(int y = 0; y < height; y++) {
+            long up = rows[y == 0 ? height - 1 : y - 1];
+            long row = rows[y];
+            long down = rows[y == height - 1 ? 0 : y + 1];
+
+            // Sum the three cells above and below each cell into two bit planes (ones and twos)
+            long upWest = west(up);
+            long upEast = east(up);
+            long upOnes = upWest ^ up ^ upEast;
+            long upTwos = (upWest & up) | (upEast & (upWest ^ up));
+
+            long downWest = west(down);
+            long downEast = east(down);
+            long downOnes = downWest ^ down ^ downEast;
+            long downTwos = (downWest & down) | (downEast & (downWest ^ down));
+
+            // The cells either side of each cell
+            long rowWest = west(row);
+            long rowEast = east(row);
+            long rowOnes = rowWest ^ rowEast;
+            long rowTwos = rowWest & rowEast;
+
+            // Add the ones planes, carrying into the twos
+            long ones = upOnes ^ downOnes ^ rowOnes;
+            long onesCarry = (upOnes & downOnes) | (rowOnes & (upOnes ^ downOnes));
+
+            // Add the twos planes and the carry, keeping the twos and fours bits of the neighbor count
+            long twosSum = upTwos ^ downTwos ^ rowTwos;
+            long twosCarry = (upTwos & downTwos) | (rowTwos & (upTwos ^ downTwos));
+            long twos = twosSum ^ onesCarry;
+            long fours = twosCarry ^ (twosSum & onesCarry);
+
+            // Alive with 3 neighbors, or alive now with 2 neighbors. A count of 8 wraps to 0 and is dead.
+            nextRows[y] = twos & ~fours & (ones | row) & rowMask;
+        }
+    }
+
+    // Each bit x receives the value of its toroidal neighbor at x - 1
+    private long west(long row) {
+        return ((row << 1) | (row >>> (width - 1))) & rowMask;
+    }
+
+    // Each bit x receives the value of its toroidal neighbor at x + 1
+    private long east(long row) {
+        return ((row >>> 1) | (row << (width - 1))) & rowMask;
+    }
+}
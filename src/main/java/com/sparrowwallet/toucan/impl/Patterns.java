@@ -1,20 +1,17 @@
 package com.sparrowwallet.toucan.impl;
 
 import com.sparrowwallet.toucan.LifeHashVersion;
+import com.sparrowwallet.toucan.Pattern;
 
-public enum Pattern {
-    SNOWFLAKE, // Mirror around central axes.
-    PINWHEEL, // Rotate around center.
-    FIDUCIAL; // Identity.
-
+public class Patterns {
     public static Pattern selectPattern(BitEnumerator entropy, LifeHashVersion version) {
         if (version == LifeHashVersion.FIDUCIAL || version == LifeHashVersion.GRAYSCALE_FIDUCIAL) {
-            return FIDUCIAL;
+            return Pattern.FIDUCIAL;
         } else {
             if (entropy.next()) {
-                return SNOWFLAKE;
+                return Pattern.SNOWFLAKE;
             } else {
-                return PINWHEEL;
+                return Pattern.PINWHEEL;
             }
         }
     }
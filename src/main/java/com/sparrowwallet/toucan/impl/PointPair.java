@@ -1,4 +0,0 @@
-package com.sparrowwallet.toucan.impl;
-
-public record PointPair(Point o, Point p) {
-}
@@ -0,0 +1,81 @@
+package com.sparrowwallet.toucan.impl;
+
+import java.util.Arrays;
+
+/**
+ * A set of packed cell grid states, used to detect when the Game of Life has entered a cycle.
+ * States are copied into a flat array of longs and indexed by an open-addressed hash table,
+ * with a full comparison of the words on every hash match.
+ */
+public class StateHistory {
+    private final int stateLength;
+    private final int capacity;
+    private final long[] states;
+    private final int[] table;
+    private final int tableMask;
+    private int count;
+
+    public StateHistory(int stateLength, int capacity) {
+        this.stateLength = stateLength;
+        this.capacity = capacity;
+        this.states = new long[stateLength * capacity];
+        // Keep the load factor at or below one half
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+        this.table = new int[tableSize];
+        this.tableMask = tableSize - 1;
+    }
+
+    /**
+     * Adds a state to the history
+     *
+     * @param state the packed state, of which the first stateLength words are used
+     * @return true if the state was added, false if it was already present
+     */
+    public boolean add(long[] state) {
+        int slot = hash(state) & tableMask;
+        while(table[slot] != 0) {
+            if(matches(table[slot] - 1, state)) {
+                return false;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+
+        if(count == capacity) {
+            throw new IllegalStateException("State history is full.");
+        }
+
+        System.arraycopy(state, 0, states, count * stateLength, stateLength);
+        count++;
+        table[slot] = count;
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        count = 0;
+    }
+
+    private boolean matches(int index, long[] state) {
+        int offset = index * stateLength;
+        for(int i = 0; i < stateLength; i++) {
+            if(states[offset + i] != state[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(long[] state) {
+        long h = 0;
+        for(int i = 0; i < stateLength; i++) {
+            h = (h + state[i]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 29;
+        }
+        h ^= h >>> 32;
+        return (int)h;
+    }
+}
@@ -26,6 +26,15 @@ public class Utils {
         return Math.max(Math.min(n, 1), 0);
     }
 
+    // Converts a color component to a byte, as the original float to byte conversion
+    public static byte toByte(double n) {
+        return (byte)(clamped(n) * 255);
+    }
+
+    public static int packRGB(double r, double g, double b) {
+        return ((toByte(r) & 0xFF) << 16) | ((toByte(g) & 0xFF) << 8) | (toByte(b) & 0xFF);
+    }
+
     public static double modulo(double dividend, double divisor) {
         return dividend % divisor; //Math.IEEEremainder(Math.IEEEremainder(dividend, divisor) + divisor, divisor);
     }
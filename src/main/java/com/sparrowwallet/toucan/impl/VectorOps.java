@@ -0,0 +1,46 @@
+package com.sparrowwallet.toucan.impl;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD pixel expansion using the incubating Vector API. This is the only class that
+ * refers to jdk.incubator.vector, and it must only be used when {@link VectorSupport#isEnabled()} returns true.
+ */
+final class VectorOps {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    private VectorOps() {
+    }
+
+    static boolean isSupported() {
+        // Vectors narrower than two pixels would be no faster than the scalar loop
+        return INTS.length() > 1;
+    }
+
+    static int pixelLanes() {
+        return INTS.length();
+    }
+
+    /**
+     * Writes a 4 byte pixel repeatedly into a byte array, a whole vector of pixels at a time.
+     *
+     * @param pixel the bytes of the pixel in memory order, least significant byte first
+     * @return the number of pixels written, with any remainder shorter than a vector left for the caller
+     */
+    static int fillPixels(byte[] dst, int offset, int pixel, int count) {
+        int lanes = INTS.length();
+        if(count < lanes) {
+            return 0;
+        }
+
+        // Vector lanes are reinterpreted as bytes in little-endian order
+        ByteVector pixels = IntVector.broadcast(INTS, pixel).reinterpretAsBytes();
+        int i = 0;
+        for(; i + lanes <= count; i += lanes) {
+            pixels.intoArray(dst, offset + i * 4);
+        }
+        return i;
+    }
+}
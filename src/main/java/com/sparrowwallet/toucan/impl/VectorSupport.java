@@ -0,0 +1,58 @@
+package com.sparrowwallet.toucan.impl;
+
+/**
+ * Decides whether the SIMD implementations in VectorOps are used. They are enabled when the jdk.incubator.vector module
+ * has been resolved (for example with --add-modules jdk.incubator.vector) and the preferred vector holds more than one pixel,
+ * unless disabled with -Dcom.sparrowwallet.toucan.vector=false. Otherwise the scalar implementations are used.
+ * The Life step is always scalar, as the bitboard in PackedCellGrid already steps a whole row with each 64 bit operation.
+ */
+public final class VectorSupport {
+    public static final String PROPERTY = "com.sparrowwallet.toucan.vector";
+
+    private static final boolean ENABLED = detect();
+
+    private VectorSupport() {
+    }
+
+    /**
+     * @return whether the Vector API implementations are in use
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    private static boolean detect() {
+        if(!Boolean.parseBoolean(System.getProperty(PROPERTY, "true"))) {
+            return false;
+        }
+        if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+
+        try {
+            return VectorOps.isSupported();
+        } catch(LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the smallest run of pixels worth filling with {@link #fillPixels(byte[], int, int, int)}
+     */
+    public static int pixelLanes() {
+        return VectorOps.pixelLanes();
+    }
+
+    /**
+     * Writes a 4 byte pixel repeatedly into a byte array, a whole vector of pixels at a time
+     *
+     * @param dst the array to write to
+     * @param offset the offset into dst of the first pixel
+     * @param pixel the bytes of the pixel in memory order, least significant byte first
+     * @param count the number of pixels to write
+     * @return the number of pixels written, which may be fewer than count
+     */
+    public static int fillPixels(byte[] dst, int offset, int pixel, int count) {
+        return VectorOps.fillPixels(dst, offset, pixel, count);
+    }
+}
@@ -1,4 +1,5 @@
 module com.sparrowwallet.toucan {
-    requires java.desktop;
+    requires static transitive java.desktop;
+    requires static jdk.incubator.vector;
     exports com.sparrowwallet.toucan;
-}
\ No newline at end of file
+}
@@ -1,8 +1,39 @@
 package com.sparrowwallet.toucan;
 
+import com.sparrowwallet.toucan.impl.Sha256Hash;
+import com.sparrowwallet.toucan.impl.Utils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
 public class LifeHashTest {
     @Test
     public void testHello() {
@@ -15,6 +46,53 @@ public class LifeHashTest {
         }
     }
 
+    @Test
+    public void testGoldenImages() {
+        // SHA256 hashes of the full image of each input in every version, generated with the original port. The inputs cover
+        // both the snowflake and pinwheel patterns of each version that selects between them.
+        String[][] vectors = new String[][] {
+                { "VERSION1", "", "7246b77ad6708f4f21bc6dfcd3fac06198caec1fd1096a15dd5d46e82c399495" },
+                { "VERSION1", "Hello", "988ec340640e18fe560e6b48217ba179f7d585d6dc3f548aec5df630c6b57f77" },
+                { "VERSION1", "World", "96db7dff9d8836cf14b4e25dc3cc0d58f89cc98313a27985b04d71d18866da46" },
+                { "VERSION1", "1", "7c7c2eb4e1b7caf39be3a8e3b414d8da60596bd108f99fe91ba9ca8844c9db86" },
+                { "VERSION1", "2", "69f1c8cde29d9fb1e0fff26cc7b3390416b76f9771342db552e43cf6ed66e272" },
+                { "VERSION1", "8", "c76e1f4bdec146ef8e66454d122f0e402df53a2f48967b06d6b12b1551b9513b" },
+                { "VERSION2", "", "ca68773e52a9f34f57dab7b5c32e2ef5bee5622c5afb04e2d5c07c7f77d27ae5" },
+                { "VERSION2", "Hello", "a58bb5ca1f675a286f562e951d6c6d0436ec6d0375dd8b7975944e80932de584" },
+                { "VERSION2", "World", "76d688d539643c48ba6f7f27ae63f4fc5671c5c9ba3455df734359f0a26e5af8" },
+                { "VERSION2", "1", "b4c37442decd1658d0699ab3b0222204556df8a95421c78a439880dfd3fc2628" },
+                { "VERSION2", "2", "da16e7b0e385f3161b9ba8544b2f9e522ecc5fafa3fb2a72c818bb4de214ce4b" },
+                { "VERSION2", "8", "d375da5d632b988ca2a2f3f0a7a54f795c2017be0a88584e1fa48629db8af5ab" },
+                { "DETAILED", "", "5936be06abe1465de43d6b77f034e2937f097559795ab9e38e64b095076f51fe" },
+                { "DETAILED", "Hello", "ccac0054954693f309539734c120867cf95edd3d4660cf5564a46c4e27886f3e" },
+                { "DETAILED", "World", "2caf043e9a0391884bde0384c2c8e354855c7c123f33045fef6bd5d1bb4d616a" },
+                { "DETAILED", "1", "ac2689c025941bc51e4107985346c3b6fe8dce841fbb09fa1ec3a75b3434491b" },
+                { "DETAILED", "2", "98cba720896c05ff8ddb7ad4b5aa62ffecc6542ef1f6a0b68fa2fd7b453ce804" },
+                { "DETAILED", "8", "23af96618b2b4154ad17d5c9ea7dc8dd7b30a5655741043615b7e3a423951243" },
+                { "FIDUCIAL", "", "34f1ff46a7f51e5463970c0163b55846c4753d7db2361b0782405f80d2beec31" },
+                { "FIDUCIAL", "Hello", "d5e22d3cf3f139e6b16342e0392ccefe699a9c7c18af9ae0bd34d6dcab32a475" },
+                { "FIDUCIAL", "World", "e88786460c762904cd9369e2761752cf334948f3f9fec2d03e5e006ed53d1aec" },
+                { "FIDUCIAL", "1", "2576207fd1e27705fcd8420a618ec0bf615e0f6d62c4af0b3beac245f7c56686" },
+                { "FIDUCIAL", "2", "3d421f1fbc3b89de6464225badc0c1f2bfa578bdc8f3cbc84e74d5ab3bf28cbc" },
+                { "FIDUCIAL", "8", "8f418ea041e1acc6c2aa9353609551020cfeb4e6023569c009edda906cc414c8" },
+                { "GRAYSCALE_FIDUCIAL", "", "aace7518922dcc3c0ee39341ec0634fcda293a1037ff77ddd94a7bdb3ced045d" },
+                { "GRAYSCALE_FIDUCIAL", "Hello", "3c8bb6e3b00ea88975c9e8caa0e56586fdfd441dae8de45d49e84d1e84c4d3d0" },
+                { "GRAYSCALE_FIDUCIAL", "World", "f0bff0b4047e45b119bce4b5aec655f06864f39bf94d763f77d428d6a4b4dfc4" },
+                { "GRAYSCALE_FIDUCIAL", "1", "79ea68fc87e0f66f9ae2313793a44b2e7dd317536164f581727f4ccf32f0f3a4" },
+                { "GRAYSCALE_FIDUCIAL", "2", "f3dcbf99ebe4bd56ae6f2432384cd1dbac6248a5e03f7eb109e4b2f080863aeb" },
+                { "GRAYSCALE_FIDUCIAL", "8", "e2bb034f301f5ca9eb0090914035061260077d0f0986c9a2c9e6bfa6c72e5905" }
+        };
+
+        Set<String> patterns = new HashSet<>();
+        for(String[] vector : vectors) {
+            LifeHashVersion version = LifeHashVersion.valueOf(vector[0]);
+            LifeHash.Image image = LifeHash.makeFromUTF8(vector[1], version, 1, false);
+            Assert.assertEquals(vector[0] + " \"" + vector[1] + "\"", vector[2], Utils.bytesToHex(Sha256Hash.hash(image.toByteArray())));
+            patterns.add(vector[0] + " " + LifeHash.makeModelFromDigest(Sha256Hash.hash(vector[1].getBytes(StandardCharsets.UTF_8)), version).getPattern());
+        }
+        Assert.assertEquals(8, patterns.size());
+    }
+
     @Test
     public void testHelloAlpha() {
         LifeHash.Image image = LifeHash.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 1, true);
@@ -25,4 +103,579 @@ public class LifeHashTest {
             Assert.assertEquals(expected[i], image.colors().get(i).byteValue());
         }
     }
+
+    @Test
+    public void testScaledImage() {
+        LifeHash.Image image = LifeHash.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 1, true);
+        LifeHash.Image scaled = LifeHash.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 3, true);
+        Assert.assertEquals(96, scaled.width());
+        Assert.assertEquals(96, scaled.height());
+        Assert.assertEquals(96 * 96 * 4, scaled.colors().size());
+
+        byte[] pixel = new byte[4];
+        byte[] scaledPixel = new byte[4];
+        for(int y = 0; y < scaled.height(); y++) {
+            for(int x = 0; x < scaled.width(); x++) {
+                image.getBytes(((y / 3) * image.width() + x / 3) * 4, pixel, 0, 4);
+                scaled.getBytes((y * scaled.width() + x) * 4, scaledPixel, 0, 4);
+                Assert.assertArrayEquals(pixel, scaledPixel);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeModules() {
+        LifeHash.Image image = LifeHash.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 1, false);
+        BufferedImage expected = AwtImages.getBufferedImage(image, 37, BufferedImage.TYPE_INT_ARGB);
+        for(PixelFormat format : new PixelFormat[] { PixelFormat.RGBA, PixelFormat.BGRA, PixelFormat.ARGB }) {
+            int stride = expected.getWidth() * 4;
+            byte[] data = new byte[stride * expected.getHeight()];
+            LifeHash.renderFromDigest(Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8)), LifeHashVersion.VERSION2, 37, format, data, 0, stride);
+            for(int y = 0; y < expected.getHeight(); y += 5) {
+                for(int x = 0; x < expected.getWidth(); x++) {
+                    int rgb = expected.getRGB(x, y);
+                    int offset = y * stride + x * 4;
+                    Assert.assertEquals((byte)(rgb >> 16), data[offset + format.name().indexOf('R')]);
+                    Assert.assertEquals((byte)(rgb >> 8), data[offset + format.name().indexOf('G')]);
+                    Assert.assertEquals((byte)rgb, data[offset + format.name().indexOf('B')]);
+                    Assert.assertEquals((byte)0xFF, data[offset + format.name().indexOf('A')]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBufferedImage() {
+        LifeHash.Image image = LifeHash.makeFromUTF8("Hello", LifeHashVersion.DETAILED, 1, false);
+        LifeHash.Image scaled = LifeHash.makeFromUTF8("Hello", LifeHashVersion.DETAILED, 2, true);
+        BufferedImage expected = AwtImages.getBufferedImage(scaled);
+        for(int imageType : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR }) {
+            BufferedImage bufferedImage = AwtImages.getBufferedImage(image, 2, imageType);
+            Assert.assertEquals(expected.getWidth(), bufferedImage.getWidth());
+            Assert.assertEquals(expected.getHeight(), bufferedImage.getHeight());
+            for(int y = 0; y < expected.getHeight(); y++) {
+                for(int x = 0; x < expected.getWidth(); x++) {
+                    Assert.assertEquals(expected.getRGB(x, y), bufferedImage.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedBufferedImage() {
+        LifeHash.Image image = LifeHash.makeFromUTF8("Hello", LifeHashVersion.DETAILED, 2, true);
+        assertSameImage(AwtImages.getBufferedImage(image), LifeHash.getBufferedImage(image));
+    }
+
+    @Test
+    public void testRenderBufferLimit() {
+        byte[] digest = Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8));
+        int size = LifeHash.getImageSize(LifeHashVersion.DETAILED, 2);
+        int length = size * size * 4;
+        // Heap and direct buffers both honour the limit rather than the capacity, and fail before writing anything
+        for(ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.allocate(length), ByteBuffer.allocateDirect(length) }) {
+            buffer.limit(length - 1);
+            Assert.assertThrows(IllegalArgumentException.class, () -> LifeHash.renderFromDigest(digest, LifeHashVersion.DETAILED, 2, PixelFormat.RGBA, buffer, 0, size * 4));
+            for(int i = 0; i < buffer.limit(); i++) {
+                Assert.assertEquals(0, buffer.get(i));
+            }
+
+            buffer.limit(length);
+            LifeHash.renderFromDigest(digest, LifeHashVersion.DETAILED, 2, PixelFormat.RGBA, buffer, 0, size * 4);
+            Assert.assertEquals(-1, buffer.get(length - 1));
+        }
+    }
+
+    @Test
+    public void testRenderFromDigest() {
+        byte[] digest = Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8));
+        LifeHash.Image image = LifeHash.makeFromDigest(digest, LifeHashVersion.DETAILED, 2, true);
+        int size = LifeHash.getImageSize(LifeHashVersion.DETAILED, 2);
+        Assert.assertEquals(image.width(), size);
+        byte[] expected = image.toByteArray();
+
+        for(PixelFormat format : PixelFormat.values()) {
+            int bytesPerPixel = format.getBytesPerPixel();
+            int stride = size * bytesPerPixel + 5;
+            byte[] data = new byte[7 + stride * size];
+            LifeHash.renderFromDigest(digest, LifeHashVersion.DETAILED, 2, format, data, 7, stride);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+            LifeHash.renderFromDigest(digest, LifeHashVersion.DETAILED, 2, format, buffer, 7, stride);
+            Assert.assertEquals(0, buffer.position());
+
+            String order = format.name().substring(0, bytesPerPixel);
+            for(int y = 0; y < size; y++) {
+                for(int x = 0; x < size; x++) {
+                    for(int c = 0; c < bytesPerPixel; c++) {
+                        int offset = 7 + y * stride + x * bytesPerPixel + c;
+                        byte component = expected[(y * size + x) * 4 + "RGBA".indexOf(order.charAt(c))];
+                        Assert.assertEquals(component, data[offset]);
+                        Assert.assertEquals(component, buffer.get(offset));
+                    }
+                }
+            }
+        }
+
+        int[] pixels = new int[3 + size * (size + 1)];
+        LifeHash.renderFromDigest(digest, LifeHashVersion.DETAILED, 2, PixelFormat.ARGB, pixels, 3, size + 1);
+        BufferedImage bufferedImage = AwtImages.getBufferedImage(image);
+        for(int y = 0; y < size; y++) {
+            for(int x = 0; x < size; x++) {
+                Assert.assertEquals(bufferedImage.getRGB(x, y), pixels[3 + y * (size + 1) + x]);
+            }
+        }
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> LifeHash.renderFromDigest(digest, LifeHashVersion.DETAILED, 2, PixelFormat.RGBA, pixels, 0, size));
+        Assert.assertThrows(IllegalArgumentException.class, () -> LifeHash.renderFromDigest(digest, LifeHashVersion.DETAILED, 2, PixelFormat.RGB, new byte[size * size * 3 - 1], 0, size * 3));
+    }
+
+    @Test
+    public void testScaledImageView() {
+        byte[] data = "Hello".getBytes(StandardCharsets.UTF_8);
+        LifeHash.Image image = LifeHash.makeFromData(data, LifeHashVersion.FIDUCIAL, 5, true);
+        ScaledImage scaled = LifeHash.makeScaledFromData(data, LifeHashVersion.FIDUCIAL, 5, true);
+        Assert.assertEquals(image.width(), scaled.width());
+        Assert.assertEquals(image.height(), scaled.height());
+        Assert.assertEquals(image, scaled.toImage());
+
+        byte[] expected = new byte[image.width() * 4];
+        byte[] row = new byte[expected.length];
+        for(int y = 0; y < scaled.height(); y++) {
+            image.getRow(y, expected, 0);
+            scaled.getRow(y, row, 0);
+            Assert.assertArrayEquals(expected, row);
+        }
+
+        BufferedImage bufferedImage = AwtImages.getBufferedImage(image);
+        int[] tile = new int[2 + 13 * 17];
+        scaled.getPixels(7, 11, 12, 17, tile, 2, 13);
+        byte[] bgra = new byte[12 * 17 * 4];
+        scaled.getPixels(7, 11, 12, 17, PixelFormat.BGRA, bgra, 0, 12 * 4);
+        for(int y = 0; y < 17; y++) {
+            for(int x = 0; x < 12; x++) {
+                int rgb = bufferedImage.getRGB(7 + x, 11 + y);
+                Assert.assertEquals(rgb, scaled.getRGB(7 + x, 11 + y));
+                Assert.assertEquals(rgb, tile[2 + y * 13 + x]);
+                Assert.assertEquals((byte)rgb, bgra[(y * 12 + x) * 4]);
+                Assert.assertEquals((byte)(rgb >> 16), bgra[(y * 12 + x) * 4 + 2]);
+            }
+        }
+
+        Assert.assertEquals(scaled.withModuleSize(1).toImage(), LifeHash.makeFromData(data, LifeHashVersion.FIDUCIAL, 1, true));
+        Assert.assertThrows(IllegalArgumentException.class, () -> scaled.getPixels(scaled.width() - 1, 0, 2, 1, tile, 0, 13));
+    }
+
+    @Test
+    public void testResized() {
+        byte[] data = "Hello".getBytes(StandardCharsets.UTF_8);
+        LifeHash.Image base = LifeHash.makeFromData(data, LifeHashVersion.VERSION2, 1, false);
+        for(ResampleFilter filter : ResampleFilter.values()) {
+            Assert.assertEquals(base, LifeHash.makeResizedFromData(data, LifeHashVersion.VERSION2, 32, 32, filter, false));
+        }
+
+        LifeHash.Image scaled = LifeHash.makeFromData(data, LifeHashVersion.VERSION2, 3, true);
+        Assert.assertEquals(scaled, LifeHash.makeResizedFromData(data, LifeHashVersion.VERSION2, 96, 96, ResampleFilter.NEAREST, true));
+        Assert.assertEquals(scaled, LifeHash.makeResizedFromData(data, LifeHashVersion.VERSION2, 96, 96, ResampleFilter.BOX, true));
+
+        // Halving with a box filter averages each 2x2 block of modules
+        byte[] pixels = base.toByteArray();
+        LifeHash.Image half = LifeHash.makeResizedFromData(data, LifeHashVersion.VERSION2, 16, 16, ResampleFilter.BOX, false);
+        for(int y = 0; y < 16; y++) {
+            for(int x = 0; x < 16; x++) {
+                for(int c = 0; c < 3; c++) {
+                    int sum = 0;
+                    for(int i = 0; i < 4; i++) {
+                        sum += pixels[((y * 2 + i / 2) * 32 + x * 2 + i % 2) * 3 + c] & 0xFF;
+                    }
+                    Assert.assertEquals((sum + 2) / 4, half.toByteArray()[(y * 16 + x) * 3 + c] & 0xFF);
+                }
+            }
+        }
+
+        // Bilinear samples lie between the modules either side
+        LifeHash.Image smooth = LifeHash.makeResizedFromData(data, LifeHashVersion.VERSION2, 48, 20, ResampleFilter.BILINEAR, false);
+        Assert.assertEquals(48, smooth.width());
+        Assert.assertEquals(20, smooth.height());
+        byte[] bgr = new byte[48 * 3 * 20];
+        LifeHash.renderResizedFromDigest(Sha256Hash.hash(data), LifeHashVersion.VERSION2, 48, 20, ResampleFilter.BILINEAR, PixelFormat.RGB, bgr, 0, 48 * 3);
+        Assert.assertArrayEquals(smooth.toByteArray(), bgr);
+    }
+
+    @Test
+    public void testStreamingInput() throws IOException {
+        // Sizes below one chunk, spanning several chunks, and large enough to be memory-mapped
+        for(int length : new int[] { 0, 100, 200000, 1024 * 1024 + 1 }) {
+            byte[] data = new byte[length];
+            for(int i = 0; i < length; i++) {
+                data[i] = (byte)(i * 31 + (i >> 8));
+            }
+
+            LifeHash.Image expected = LifeHash.makeFromData(data, LifeHashVersion.VERSION2, 1, false);
+            Assert.assertEquals(expected, LifeHash.makeFromData(new ByteArrayInputStream(data), LifeHashVersion.VERSION2, 1, false));
+            Assert.assertEquals(expected, LifeHash.makeFromData(Channels.newChannel(new ByteArrayInputStream(data)), LifeHashVersion.VERSION2, 1, false));
+
+            Path file = Files.createTempFile("lifehash", ".bin");
+            try {
+                Files.write(file, data);
+                Assert.assertEquals(expected, LifeHash.makeFromData(file, LifeHashVersion.VERSION2, 1, false));
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        // A read that fails part way through must not affect the next hash
+        InputStream failing = new SequenceInputStream(new ByteArrayInputStream(new byte[100]), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Read failed");
+            }
+        });
+        Assert.assertThrows(IOException.class, () -> LifeHash.makeFromData(failing, LifeHashVersion.VERSION2, 1, false));
+        Assert.assertEquals(LifeHash.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 1, false),
+                LifeHash.makeFromData(new ByteArrayInputStream("Hello".getBytes(StandardCharsets.UTF_8)), LifeHashVersion.VERSION2, 1, false));
+    }
+
+    @Test
+    public void testAtlas() throws IOException {
+        List<byte[]> digests = new ArrayList<>();
+        for(int i = 0; i < 7; i++) {
+            digests.add(Sha256Hash.hash(new byte[] { (byte)i }));
+        }
+
+        LifeHashAtlas.Builder builder = new LifeHashAtlas.Builder().version(LifeHashVersion.VERSION2).moduleSize(2).columns(3).padding(1).format(PixelFormat.RGB);
+        Path file = Files.createTempFile("atlas", ".rgb");
+        LifeHashAtlas mapped = null;
+        try {
+            mapped = builder.build(digests, file);
+            for(LifeHashAtlas atlas : List.of(builder.build(digests), mapped)) {
+                Assert.assertEquals(3 * 64 + 4, atlas.width());
+                Assert.assertEquals(3 * 64 + 4, atlas.height());
+                ByteBuffer buffer = atlas.getBuffer();
+                Assert.assertEquals(0, buffer.get(0));
+
+                for(int i = 0; i < digests.size(); i++) {
+                    LifeHash.Image image = LifeHash.makeFromDigest(digests.get(i), LifeHashVersion.VERSION2, 2, false);
+                    LifeHashAtlas.Tile tile = atlas.getTile(i);
+                    Assert.assertEquals(1 + (i % 3) * 65, tile.x());
+                    Assert.assertEquals(1 + (i / 3) * 65, tile.y());
+
+                    byte[] row = new byte[image.width() * 3];
+                    byte[] expected = new byte[row.length];
+                    for(int y = 0; y < tile.height(); y++) {
+                        buffer.get(tile.getOffset(atlas.getStride(), 3) + y * atlas.getStride(), row);
+                        image.getRow(y, expected, 0);
+                        Assert.assertArrayEquals(expected, row);
+                    }
+                }
+            }
+            Assert.assertEquals(mapped.height() * mapped.getStride(), Files.size(file));
+
+            // Closing releases the mapping, so the file can be deleted
+            mapped.close();
+            Assert.assertThrows(IllegalStateException.class, mapped::getBuffer);
+            Files.delete(file);
+        } finally {
+            if(mapped != null) {
+                mapped.close();
+            }
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testIndexer() throws IOException {
+        Path root = Files.createTempDirectory("lifehash");
+        try {
+            Files.createDirectories(root.resolve("b"));
+            Files.write(root.resolve("a.txt"), "Hello".getBytes(StandardCharsets.UTF_8));
+            Files.write(root.resolve("b").resolve("c.txt"), "World".getBytes(StandardCharsets.UTF_8));
+            Files.write(root.resolve("b").resolve("d.txt"), "Hello".getBytes(StandardCharsets.UTF_8));
+
+            // The output directory is within the indexed directory, and must not itself be indexed
+            Path output = root.resolve("index");
+            LifeHashIndexer indexer = new LifeHashIndexer.Builder().version(LifeHashVersion.DETAILED).moduleSize(2).concurrentReads(2).build();
+            List<LifeHashIndexer.Entry> entries = indexer.index(root, output);
+            Assert.assertEquals(3, entries.size());
+            Assert.assertEquals(3, indexer.index(root, output).size());
+
+            List<String> manifest = Files.readAllLines(output.resolve(LifeHashIndexer.MANIFEST_FILE));
+            Assert.assertEquals(3, manifest.size());
+            String hello = Utils.bytesToHex(Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8)));
+            Assert.assertEquals(hello + "\t" + hello + ".png\ta.txt", manifest.get(0));
+            Assert.assertEquals(hello + "\t" + hello + ".png\tb/d.txt", manifest.get(2));
+            Assert.assertEquals(entries.get(0).image(), entries.get(2).image());
+
+            BufferedImage expected = AwtImages.getBufferedImage(LifeHash.makeFromUTF8("World", LifeHashVersion.DETAILED, 2, false));
+            assertSameImage(expected, ImageIO.read(entries.get(1).image().toFile()));
+
+            // A file that cannot be read fails the index without writing a manifest
+            Path unreadable = root.resolve("b").resolve("e.txt");
+            Files.write(unreadable, "Unreadable".getBytes(StandardCharsets.UTF_8));
+            if(FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Files.setPosixFilePermissions(unreadable, Set.of());
+            }
+            Path failed = root.resolve("failed");
+            if(Files.isReadable(unreadable)) {
+                // Without POSIX permissions, or as the superuser, the file stays readable, so fail it on writing its image instead
+                Files.createDirectories(failed.resolve(Utils.bytesToHex(Sha256Hash.hash("Unreadable".getBytes(StandardCharsets.UTF_8))) + ".png"));
+            }
+            Assert.assertThrows(IOException.class, () -> indexer.index(root, failed));
+            Assert.assertFalse(Files.exists(failed.resolve(LifeHashIndexer.MANIFEST_FILE)));
+            Assert.assertFalse(Files.exists(failed.resolve(LifeHashIndexer.MANIFEST_FILE + ".tmp")));
+        } finally {
+            try(Stream<Path> paths = Files.walk(root)) {
+                for(Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIndexerGenerators() throws IOException {
+        // Far more threads than permitted reads, all of which start at once
+        ExecutorService executor = Executors.newCachedThreadPool();
+        LifeHashIndexer indexer = new LifeHashIndexer.Builder().concurrentReads(2).executor(executor).build();
+        Path root = Files.createTempDirectory("lifehash");
+        try {
+            int files = indexer.getMaxGenerators() * 8;
+            for(int i = 0; i < files; i++) {
+                Files.write(root.resolve(i + ".txt"), new byte[] { (byte)i });
+            }
+
+            Queue<LifeHashGenerator> generators = new ConcurrentLinkedQueue<>();
+            Assert.assertEquals(files, indexer.index(root, root.resolve("index"), generators).size());
+            Assert.assertFalse(generators.isEmpty());
+            Assert.assertTrue(generators.size() <= indexer.getMaxGenerators());
+        } finally {
+            executor.shutdown();
+            try(Stream<Path> paths = Files.walk(root)) {
+                for(Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testManifestPath() {
+        Assert.assertEquals("a/b.txt", LifeHashIndexer.getManifestPath(Path.of("a", "b.txt")));
+        Assert.assertEquals("a\\tb/c\\nd\\r", LifeHashIndexer.getManifestPath(Path.of("a\tb", "c\nd\r")));
+    }
+
+    @Test
+    public void testPng() throws IOException {
+        byte[] digest = Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8));
+        for(boolean hasAlpha : new boolean[] { false, true }) {
+            LifeHash.Image image = LifeHash.makeFromDigest(digest, LifeHashVersion.DETAILED, 3, hasAlpha);
+            BufferedImage expected = AwtImages.getBufferedImage(image);
+            for(PngEncoder.Filter filter : PngEncoder.Filter.values()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                long written = new PngEncoder(Deflater.BEST_SPEED, filter).encode(digest, LifeHashVersion.DETAILED, 3, hasAlpha, out);
+                Assert.assertEquals(out.size(), written);
+                assertSameImage(expected, ImageIO.read(new ByteArrayInputStream(out.toByteArray())));
+
+                out.reset();
+                new PngEncoder(Deflater.BEST_COMPRESSION, filter).encode(LifeHash.makeFromDigest(digest, LifeHashVersion.DETAILED, 1, hasAlpha), 3, Channels.newChannel(out));
+                assertSameImage(expected, ImageIO.read(new ByteArrayInputStream(out.toByteArray())));
+            }
+        }
+    }
+
+    @Test
+    public void testSvg() {
+        java.util.regex.Pattern stylePattern = java.util.regex.Pattern.compile("\\.c(\\d+)\\{fill:#([0-9a-f]{6})}");
+        java.util.regex.Pattern rectPattern = java.util.regex.Pattern.compile("<rect class=\"c(\\d+)\"(?: x=\"(\\d+)\" y=\"(\\d+)\")? width=\"(\\d+)\" height=\"(\\d+)\"/>");
+        for(LifeHashVersion version : LifeHashVersion.values()) {
+            byte[] digest = Sha256Hash.hash(version.name().getBytes(StandardCharsets.UTF_8));
+            LifeHash.Image image = LifeHash.makeFromDigest(digest, version, 1, false);
+            String svg = SvgEncoder.encode(digest, version, 8);
+            Assert.assertTrue(svg.contains("width=\"" + image.width() * 8 + "\""));
+
+            List<Integer> styles = new ArrayList<>();
+            Matcher styleMatcher = stylePattern.matcher(svg);
+            while(styleMatcher.find()) {
+                Assert.assertEquals(styles.size(), Integer.parseInt(styleMatcher.group(1)));
+                styles.add(Integer.parseInt(styleMatcher.group(2), 16));
+            }
+
+            int[] pixels = new int[image.width() * image.height()];
+            Matcher rectMatcher = rectPattern.matcher(svg);
+            while(rectMatcher.find()) {
+                int x = rectMatcher.group(2) == null ? 0 : Integer.parseInt(rectMatcher.group(2));
+                int y = rectMatcher.group(3) == null ? 0 : Integer.parseInt(rectMatcher.group(3));
+                for(int row = y; row < y + Integer.parseInt(rectMatcher.group(5)); row++) {
+                    Arrays.fill(pixels, row * image.width() + x, row * image.width() + x + Integer.parseInt(rectMatcher.group(4)), styles.get(Integer.parseInt(rectMatcher.group(1))));
+                }
+            }
+
+            byte[] data = image.toByteArray();
+            for(int i = 0; i < pixels.length; i++) {
+                Assert.assertEquals((data[i * 3] & 0xFF) << 16 | (data[i * 3 + 1] & 0xFF) << 8 | (data[i * 3 + 2] & 0xFF), pixels[i]);
+            }
+        }
+    }
+
+    private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        Assert.assertEquals(expected.getWidth(), actual.getWidth());
+        Assert.assertEquals(expected.getHeight(), actual.getHeight());
+        for(int y = 0; y < expected.getHeight(); y++) {
+            for(int x = 0; x < expected.getWidth(); x++) {
+                Assert.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        List<byte[]> data = new ArrayList<>();
+        for(int i = 0; i < 100; i++) {
+            data.add(("Hello" + i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<LifeHash.Image> images = LifeHash.makeFromData(data, LifeHashVersion.DETAILED, 1, false);
+        Assert.assertEquals(data.size(), images.size());
+        for(int i = 0; i < data.size(); i++) {
+            Assert.assertEquals(LifeHash.makeFromData(data.get(i), LifeHashVersion.DETAILED, 1, false), images.get(i));
+        }
+    }
+
+    @Test
+    public void testBatchGenerators() throws Exception {
+        // Each worker thread renders with its own generator, rather than with a new generator for each task
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Set<LifeHashGenerator> generators = Collections.newSetFromMap(new IdentityHashMap<>());
+            LifeHash.renderAll(100, executor, (generator, i) -> {
+                synchronized(generators) {
+                    generators.add(generator);
+                }
+            });
+            Assert.assertTrue(generators.size() <= 2);
+            Assert.assertTrue(generators.contains(executor.submit(LifeHashGenerator::get).get()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCache() {
+        LifeHashCache cache = new LifeHashCache(64 * 1024);
+        Assert.assertEquals(LifeHash.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 1, true), cache.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 1, true));
+        Assert.assertEquals(LifeHash.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 4, false), cache.makeFromUTF8("Hello", LifeHashVersion.VERSION2, 4, false));
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+
+        for(int i = 0; i < 100; i++) {
+            cache.makeFromUTF8("Hello" + i, LifeHashVersion.DETAILED, 1, false);
+        }
+        Assert.assertTrue(cache.getBytes() <= cache.getMaxBytes());
+        Assert.assertEquals(101 - cache.size(), cache.getEvictionCount());
+    }
+
+    @Test
+    public void testModel() throws IOException {
+        byte[] digest = Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8));
+        for(LifeHashVersion version : LifeHashVersion.values()) {
+            List<LifeHashStatistics> statistics = new ArrayList<>();
+            LifeHashGenerator generator = new LifeHashGenerator();
+            generator.setListener(statistics::add);
+            LifeHashModel model = generator.makeModelFromDigest(digest, version);
+            LifeHashStatistics stats = statistics.get(0);
+            Assert.assertEquals(stats.generations(), model.getGenerations());
+            Assert.assertEquals(stats.repeated(), model.isRepeated());
+            Assert.assertEquals(stats.gradientFamily(), model.getGradientFamily());
+            Assert.assertEquals(stats.pattern(), model.getPattern());
+            Assert.assertEquals(model, LifeHash.makeModelFromData("Hello".getBytes(StandardCharsets.UTF_8), version));
+
+            for(boolean hasAlpha : new boolean[] { false, true }) {
+                Assert.assertEquals(LifeHash.makeFromDigest(digest, version, 3, hasAlpha), model.toImage(3, hasAlpha));
+                Assert.assertEquals(LifeHash.makeScaledFromDigest(digest, version, 5, hasAlpha), model.toScaledImage(5, hasAlpha));
+                Assert.assertEquals(LifeHash.makeResizedFromDigest(digest, version, 45, 30, ResampleFilter.BILINEAR, hasAlpha),
+                        model.toResizedImage(45, 30, ResampleFilter.BILINEAR, hasAlpha));
+
+                ByteArrayOutputStream expected = new ByteArrayOutputStream();
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                new PngEncoder().encode(digest, version, 2, hasAlpha, expected);
+                new PngEncoder().encode(model, 2, hasAlpha, actual);
+                Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+            }
+
+            int size = LifeHash.getImageSize(version, 2);
+            byte[] expected = new byte[size * size * 4];
+            byte[] actual = new byte[size * size * 4];
+            LifeHash.renderFromDigest(digest, version, 2, PixelFormat.BGRA_PREMULTIPLIED, expected, 0, size * 4);
+            model.render(2, PixelFormat.BGRA_PREMULTIPLIED, actual, 0, size * 4);
+            Assert.assertArrayEquals(expected, actual);
+
+            LifeHash.Image image = model.toImage(1, false);
+            for(int imageType : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR }) {
+                assertSameImage(AwtImages.getBufferedImage(image, 4, imageType), AwtImages.getBufferedImage(model, 4, imageType));
+            }
+            Assert.assertEquals(SvgEncoder.encode(digest, version, 4), SvgEncoder.encode(model, 4));
+        }
+    }
+
+    @Test
+    public void testMipChain() {
+        byte[] digest = Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8));
+        LifeHashMipChain mipChain = LifeHash.makeMipChainFromDigest(digest, LifeHashVersion.VERSION2, PixelFormat.RGBA, 1, 2, 4, 8);
+        Assert.assertEquals(4, mipChain.getLevels().size());
+        Assert.assertEquals(32 * 32 * 4 * (1 + 4 + 16 + 64), mipChain.getBytes());
+
+        int offset = 0;
+        for(int i = 0; i < 4; i++) {
+            LifeHashMipChain.Level level = mipChain.getLevel(i);
+            int moduleSize = 1 << i;
+            Assert.assertEquals(new LifeHashMipChain.Level(moduleSize, 32 * moduleSize, 32 * moduleSize, offset, 32 * moduleSize * 4), level);
+            offset += level.getBytes();
+
+            byte[] expected = LifeHash.makeFromDigest(digest, LifeHashVersion.VERSION2, moduleSize, true).toByteArray();
+            Assert.assertEquals(expected.length, level.getBytes());
+            byte[] actual = new byte[expected.length];
+            mipChain.getBuffer(i).get(actual);
+            Assert.assertArrayEquals(expected, actual);
+        }
+
+        LifeHashMipChain fromModel = LifeHash.makeModelFromDigest(digest, LifeHashVersion.VERSION2).toMipChain(PixelFormat.RGBA, 1, 2, 4, 8);
+        Assert.assertEquals(mipChain.getBuffer(), fromModel.getBuffer());
+        Assert.assertThrows(IllegalArgumentException.class, () -> LifeHash.makeMipChainFromDigest(digest, LifeHashVersion.VERSION2, PixelFormat.RGBA));
+        Assert.assertThrows(IllegalArgumentException.class, () -> LifeHash.makeMipChainFromDigest(digest, LifeHashVersion.VERSION2, PixelFormat.RGBA, 1, 0));
+    }
+
+    @Test
+    public void testSeed() {
+        LifeHashGenerator generator = new LifeHashGenerator();
+        byte[] digest = Sha256Hash.hash("Hello".getBytes(StandardCharsets.UTF_8));
+        Assert.assertArrayEquals(digest, generator.makeSeed(digest, LifeHashVersion.VERSION1));
+        Assert.assertArrayEquals(Sha256Hash.hash(digest), generator.makeSeed(digest, LifeHashVersion.VERSION2));
+
+        // The detailed seeds are a chain of four hashes, starting from the digest or from its hash for grayscale fiducials
+        for(LifeHashVersion version : new LifeHashVersion[] { LifeHashVersion.DETAILED, LifeHashVersion.FIDUCIAL, LifeHashVersion.GRAYSCALE_FIDUCIAL }) {
+            byte[] expected = new byte[Sha256Hash.LENGTH * 4];
+            byte[] link = version == LifeHashVersion.GRAYSCALE_FIDUCIAL ? Sha256Hash.hash(digest) : digest;
+            for(int i = 0; i < 4; i++) {
+                System.arraycopy(link, 0, expected, i * Sha256Hash.LENGTH, Sha256Hash.LENGTH);
+                link = Sha256Hash.hash(link);
+            }
+            Assert.assertArrayEquals(expected, generator.makeSeed(digest, version));
+        }
+    }
+
+    @Test
+    public void testListener() {
+        List<LifeHashStatistics> statistics = new ArrayList<>();
+        LifeHashGenerator generator = new LifeHashGenerator();
+        generator.setListener(statistics::add);
+
+        LifeHash.Image image = generator.makeFromUTF8("Hello", LifeHashVersion.FIDUCIAL, 2, true);
+        Assert.assertEquals(1, statistics.size());
+        LifeHashStatistics stats = statistics.get(0);
+        Assert.assertEquals(LifeHashVersion.FIDUCIAL, stats.version());
+        Assert.assertEquals(Pattern.FIDUCIAL, stats.pattern());
+        Assert.assertTrue(stats.generations() > 0 && stats.generations() <= 300);
+        Assert.assertEquals(stats.generations() < 300, stats.repeated());
+        Assert.assertEquals(image.width() * image.height() * 4, stats.imageBytes());
+    }
 }
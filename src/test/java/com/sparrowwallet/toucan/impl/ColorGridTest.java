@@ -0,0 +1,48 @@
+package com.sparrowwallet.toucan.impl;
+
+import com.sparrowwallet.toucan.Pattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class ColorGridTest {
+    @Test
+    public void testMatchesTransformPoint() {
+        for(Pattern pattern : Pattern.values()) {
+            for(Size size : new Size[] { new Size(1, 1), new Size(2, 2), new Size(3, 3), new Size(16, 16), new Size(32, 32), new Size(5, 3) }) {
+                // Pinwheels transpose the grid, so are only drawn from square grids
+                if(pattern == Pattern.PINWHEEL && size.width() != size.height()) {
+                    continue;
+                }
+
+                // Every cell has its own level, so each has a distinct color
+                int capacity = size.width() * size.height();
+                int[] lastAliveGenerations = new int[capacity];
+                for(int i = 0; i < capacity; i++) {
+                    lastAliveGenerations[i] = i + 1;
+                }
+                FracGrid fracGrid = new FracGrid(size);
+                fracGrid.setGenerations(lastAliveGenerations, capacity);
+                ColorGrid colorGrid = new ColorGrid(fracGrid, Gradients.makeHue, pattern);
+
+                int[] palette = new int[fracGrid.getLevelCount()];
+                Gradients.makeHue.compile().apply(fracGrid.getLevelValues(), fracGrid.getLevelCount(), palette);
+                Size targetSize = ColorGrid.targetSize(size, pattern);
+                List<ColorGrid.Transform> transforms = ColorGrid.transformsMap.get(pattern);
+                int[] expected = new int[targetSize.width() * targetSize.height()];
+                for(int y = 0; y < size.height(); y++) {
+                    for(int x = 0; x < size.width(); x++) {
+                        for(ColorGrid.Transform transform : transforms) {
+                            Point point = ColorGrid.transformPoint(new Point(x, y), transform, targetSize.width() - 1, targetSize.height() - 1);
+                            expected[point.y() * targetSize.width() + point.x()] = palette[lastAliveGenerations[y * size.width() + x]];
+                        }
+                    }
+                }
+
+                Assert.assertEquals(targetSize, colorGrid.getSize());
+                Assert.assertArrayEquals(expected, colorGrid.getColors());
+            }
+        }
+    }
+}
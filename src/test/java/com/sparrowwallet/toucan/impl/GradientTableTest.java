@@ -0,0 +1,45 @@
+package com.sparrowwallet.toucan.impl;
+
+import com.sparrowwallet.toucan.LifeHashVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GradientTableTest {
+    @Test
+    public void testMatchesColorFunc() {
+        for(LifeHashVersion version : LifeHashVersion.values()) {
+            for(int i = 0; i < 64; i++) {
+                BitEnumerator entropy = new BitEnumerator(Sha256Hash.hash(new byte[] { (byte)i }));
+                ColorFunc gradient = Gradients.selectGradient(entropy, version);
+                GradientTable table = gradient.compile();
+                for(int j = -10; j <= 310; j++) {
+                    double value = j / 300.0;
+                    Color expected = gradient.apply(value);
+                    Color actual = table.apply(value);
+                    Assert.assertEquals(expected.r, actual.r, 0);
+                    Assert.assertEquals(expected.g, actual.g, 0);
+                    Assert.assertEquals(expected.b, actual.b, 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompileFunction() {
+        // Functions other than blends are evaluated through apply, including when reversed
+        for(ColorFunc gradient : new ColorFunc[] { Gradients.makeHue, ColorFunc.reverse(Gradients.makeHue) }) {
+            GradientTable table = gradient.compile();
+            Assert.assertSame(table, gradient.compile());
+            for(int j = 0; j <= 300; j++) {
+                double value = j / 300.0;
+                Color expected = gradient.apply(value);
+                Color actual = table.apply(value);
+                Assert.assertEquals(expected.r, actual.r, 0);
+                Assert.assertEquals(expected.g, actual.g, 0);
+                Assert.assertEquals(expected.b, actual.b, 0);
+            }
+        }
+
+        Assert.assertSame(Gradients.spectrum.compile(), Gradients.spectrum.compile());
+    }
+}
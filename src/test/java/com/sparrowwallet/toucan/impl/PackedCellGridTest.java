@@ -0,0 +1,65 @@
+package com.sparrowwallet.toucan.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PackedCellGridTest {
+    @Test
+    public void testMatchesReferenceStep() {
+        for(int length : new int[] { 16, 32 }) {
+            Size size = new Size(length, length);
+            byte[] data = new byte[length * length / 8];
+            byte[] digest = new byte[] { (byte)length };
+            for(int offset = 0; offset < data.length; offset += Sha256Hash.LENGTH) {
+                digest = Sha256Hash.hash(digest);
+                System.arraycopy(digest, 0, data, offset, Sha256Hash.LENGTH);
+            }
+
+            boolean[] cells = new boolean[length * length];
+            BitEnumerator e = new BitEnumerator(data);
+            for(int i = 0; e.hasNext(); i++) {
+                cells[i] = e.next();
+            }
+
+            PackedCellGrid packedCellGrid = new PackedCellGrid(size);
+            PackedCellGrid nextPackedCellGrid = new PackedCellGrid(size);
+            packedCellGrid.setData(data);
+            Assert.assertArrayEquals(data, packedCellGrid.getData());
+
+            for(int generation = 0; generation < 50; generation++) {
+                for(int y = 0; y < length; y++) {
+                    for(int x = 0; x < length; x++) {
+                        Assert.assertEquals(cells[y * length + x], packedCellGrid.getValue(x, y));
+                    }
+                }
+
+                cells = nextGeneration(cells, length);
+                packedCellGrid.nextGeneration(nextPackedCellGrid);
+
+                PackedCellGrid tempPackedCellGrid = packedCellGrid;
+                packedCellGrid = nextPackedCellGrid;
+                nextPackedCellGrid = tempPackedCellGrid;
+            }
+        }
+    }
+
+    // Conway's Game of Life on a square torus, counting the eight neighbors of each cell directly
+    private static boolean[] nextGeneration(boolean[] cells, int length) {
+        boolean[] next = new boolean[cells.length];
+        for(int y = 0; y < length; y++) {
+            for(int x = 0; x < length; x++) {
+                int neighbors = 0;
+                for(int oy = -1; oy <= 1; oy++) {
+                    for(int ox = -1; ox <= 1; ox++) {
+                        if((ox != 0 || oy != 0) && cells[((y + oy + length) % length) * length + (x + ox + length) % length]) {
+                            neighbors++;
+                        }
+                    }
+                }
+                boolean alive = cells[y * length + x];
+                next[y * length + x] = neighbors == 3 || (alive && neighbors == 2);
+            }
+        }
+        return next;
+    }
+}